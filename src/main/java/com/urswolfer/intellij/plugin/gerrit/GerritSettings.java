@@ -22,7 +22,6 @@ import com.google.common.base.Strings;
 import com.intellij.credentialStore.CredentialAttributes;
 import com.intellij.credentialStore.Credentials;
 import com.intellij.ide.passwordSafe.PasswordSafe;
-import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
@@ -47,31 +46,51 @@ public class GerritSettings implements PersistentStateComponent<Element>, Gerrit
     private static final String HOST = "Host";
     private static final String AUTOMATIC_REFRESH = "AutomaticRefresh";
     private static final String LIST_ALL_CHANGES = "ListAllChanges";
+    private static final String PARALLEL_PAGE_LOADING = "ParallelPageLoading";
     private static final String REFRESH_TIMEOUT = "RefreshTimeout";
     private static final String REVIEW_NOTIFICATIONS = "ReviewNotifications";
+    private static final String EVENT_STREAM = "EventStream";
     private static final String PUSH_TO_GERRIT = "PushToGerrit";
     private static final String SHOW_CHANGE_NUMBER_COLUMN = "ShowChangeNumberColumn";
     private static final String SHOW_CHANGE_ID_COLUMN = "ShowChangeIdColumn";
     private static final String SHOW_TOPIC_COLUMN = "ShowTopicColumn";
     private static final String SHOW_PROJECT_COLUMN = "ShowProjectColumn";
     private static final String CLONE_BASE_URL = "CloneBaseUrl";
+    private static final String CONNECTION_POOL_SIZE = "ConnectionPoolSize";
+    private static final String CONNECTION_KEEP_ALIVE_TIMEOUT = "ConnectionKeepAliveTimeout";
+    private static final int DEFAULT_CONNECTION_POOL_SIZE = 8;
+    private static final int DEFAULT_CONNECTION_KEEP_ALIVE_TIMEOUT = 60;
+    private static final String SHARDED_QUERY_THRESHOLD = "ShardedQueryThreshold";
+    private static final int DEFAULT_SHARDED_QUERY_THRESHOLD = 2000;
+    private static final String PREFETCH_CHANGES = "PrefetchChanges";
+    private static final int DEFAULT_PREFETCH_CHANGES = 10;
     private static final String GERRIT_SETTINGS_PASSWORD_KEY = "GERRIT_SETTINGS_PASSWORD_KEY";
     private static final CredentialAttributes CREDENTIAL_ATTRIBUTES = new CredentialAttributes(GerritSettings.class.getName(), GERRIT_SETTINGS_PASSWORD_KEY);
 
     private String login = "";
     private String host = "";
     private boolean listAllChanges = false;
+    private boolean parallelPageLoading = false;
     private boolean automaticRefresh = true;
     private int refreshTimeout = 15;
     private boolean refreshNotifications = true;
+    private boolean eventStream = false;
     private boolean pushToGerrit = false;
     private boolean showChangeNumberColumn = false;
     private boolean showChangeIdColumn = false;
     private boolean showTopicColumn = false;
     private ShowProjectColumn showProjectColumn = ShowProjectColumn.AUTO;
     private String cloneBaseUrl = "";
+    private int connectionPoolSize = DEFAULT_CONNECTION_POOL_SIZE;
+    private int connectionKeepAliveTimeout = DEFAULT_CONNECTION_KEEP_ALIVE_TIMEOUT;
+    private int shardedQueryThreshold = DEFAULT_SHARDED_QUERY_THRESHOLD;
+    private int prefetchChanges = DEFAULT_PREFETCH_CHANGES;
 
-    private Optional<String> preloadedPassword;
+    /**
+     * Password from the PasswordSafe (absent if none is stored); null until it has been loaded. Lookups can be slow
+     * (e.g. KeePass or OS keychain) and are therefore done once and not for every request.
+     */
+    private volatile Optional<String> cachedPassword;
 
     private Logger log;
 
@@ -80,15 +99,21 @@ public class GerritSettings implements PersistentStateComponent<Element>, Gerrit
         element.setAttribute(LOGIN, (getLogin() != null ? getLogin() : ""));
         element.setAttribute(HOST, (getHost() != null ? getHost() : ""));
         element.setAttribute(LIST_ALL_CHANGES, Boolean.toString(getListAllChanges()));
+        element.setAttribute(PARALLEL_PAGE_LOADING, Boolean.toString(getParallelPageLoading()));
         element.setAttribute(AUTOMATIC_REFRESH, Boolean.toString(getAutomaticRefresh()));
         element.setAttribute(REFRESH_TIMEOUT, Integer.toString(getRefreshTimeout()));
         element.setAttribute(REVIEW_NOTIFICATIONS, Boolean.toString(getReviewNotifications()));
+        element.setAttribute(EVENT_STREAM, Boolean.toString(getEventStream()));
         element.setAttribute(PUSH_TO_GERRIT, Boolean.toString(getPushToGerrit()));
         element.setAttribute(SHOW_CHANGE_NUMBER_COLUMN, Boolean.toString(getShowChangeNumberColumn()));
         element.setAttribute(SHOW_CHANGE_ID_COLUMN, Boolean.toString(getShowChangeIdColumn()));
         element.setAttribute(SHOW_TOPIC_COLUMN, Boolean.toString(getShowTopicColumn()));
         element.setAttribute(SHOW_PROJECT_COLUMN, getShowProjectColumn().name());
         element.setAttribute(CLONE_BASE_URL, (getCloneBaseUrl() != null ? getCloneBaseUrl() : ""));
+        element.setAttribute(CONNECTION_POOL_SIZE, Integer.toString(getConnectionPoolSize()));
+        element.setAttribute(CONNECTION_KEEP_ALIVE_TIMEOUT, Integer.toString(getConnectionKeepAliveTimeout()));
+        element.setAttribute(SHARDED_QUERY_THRESHOLD, Integer.toString(getShardedQueryThreshold()));
+        element.setAttribute(PREFETCH_CHANGES, Integer.toString(getPrefetchChanges()));
         return element;
     }
 
@@ -99,15 +124,21 @@ public class GerritSettings implements PersistentStateComponent<Element>, Gerrit
             setHost(element.getAttributeValue(HOST));
 
             setListAllChanges(getBooleanValue(element, LIST_ALL_CHANGES));
+            setParallelPageLoading(getBooleanValue(element, PARALLEL_PAGE_LOADING));
             setAutomaticRefresh(getBooleanValue(element, AUTOMATIC_REFRESH));
             setRefreshTimeout(getIntegerValue(element, REFRESH_TIMEOUT));
             setReviewNotifications(getBooleanValue(element, REVIEW_NOTIFICATIONS));
+            setEventStream(getBooleanValue(element, EVENT_STREAM));
             setPushToGerrit(getBooleanValue(element, PUSH_TO_GERRIT));
             setShowChangeNumberColumn(getBooleanValue(element, SHOW_CHANGE_NUMBER_COLUMN));
             setShowChangeIdColumn(getBooleanValue(element, SHOW_CHANGE_ID_COLUMN));
             setShowTopicColumn(getBooleanValue(element, SHOW_TOPIC_COLUMN));
             setShowProjectColumn(getShowProjectColumnValue(element, SHOW_PROJECT_COLUMN));
             setCloneBaseUrl(element.getAttributeValue(CLONE_BASE_URL));
+            setConnectionPoolSize(getIntegerValue(element, CONNECTION_POOL_SIZE, DEFAULT_CONNECTION_POOL_SIZE));
+            setConnectionKeepAliveTimeout(getIntegerValue(element, CONNECTION_KEEP_ALIVE_TIMEOUT, DEFAULT_CONNECTION_KEEP_ALIVE_TIMEOUT));
+            setShardedQueryThreshold(getIntegerValue(element, SHARDED_QUERY_THRESHOLD, DEFAULT_SHARDED_QUERY_THRESHOLD));
+            setPrefetchChanges(getIntegerValue(element, PREFETCH_CHANGES, DEFAULT_PREFETCH_CHANGES));
         } catch (Exception e) {
             log.error("Error happened while loading gerrit settings: " + e);
         }
@@ -123,11 +154,15 @@ public class GerritSettings implements PersistentStateComponent<Element>, Gerrit
     }
 
     private int getIntegerValue(Element element, String attributeName) {
+        return getIntegerValue(element, attributeName, 0);
+    }
+
+    private int getIntegerValue(Element element, String attributeName, int defaultValue) {
         String attributeValue = element.getAttributeValue(attributeName);
         if (attributeValue != null) {
             return Integer.valueOf(attributeValue);
         } else {
-            return 0;
+            return defaultValue;
         }
     }
 
@@ -149,20 +184,19 @@ public class GerritSettings implements PersistentStateComponent<Element>, Gerrit
     @Override
     @NotNull
     public String getPassword() {
-        if (!ApplicationManager.getApplication().isDispatchThread()) {
-            if (preloadedPassword == null) {
-                throw new IllegalStateException("Need to call #preloadPassword when password is required in background thread");
-            }
-        } else {
-            preloadPassword();
+        Optional<String> password = cachedPassword;
+        if (password == null) {
+            password = loadPassword();
         }
-        return preloadedPassword.or("");
+        return password.or("");
     }
 
-    public void preloadPassword() {
-        Credentials credentials = PasswordSafe.getInstance().get(CREDENTIAL_ATTRIBUTES);
-        String password = credentials != null ? credentials.getPasswordAsString() : null;
-        preloadedPassword = Optional.fromNullable(password);
+    private synchronized Optional<String> loadPassword() {
+        if (cachedPassword == null) {
+            Credentials credentials = PasswordSafe.getInstance().get(CREDENTIAL_ATTRIBUTES);
+            cachedPassword = Optional.fromNullable(credentials != null ? credentials.getPasswordAsString() : null);
+        }
+        return cachedPassword;
     }
 
     @Override
@@ -188,6 +222,14 @@ public class GerritSettings implements PersistentStateComponent<Element>, Gerrit
         this.listAllChanges = listAllChanges;
     }
 
+    public boolean getParallelPageLoading() {
+        return parallelPageLoading;
+    }
+
+    public void setParallelPageLoading(boolean parallelPageLoading) {
+        this.parallelPageLoading = parallelPageLoading;
+    }
+
     public boolean getAutomaticRefresh() {
         return automaticRefresh;
     }
@@ -200,16 +242,23 @@ public class GerritSettings implements PersistentStateComponent<Element>, Gerrit
         return refreshNotifications;
     }
 
-    public void setLogin(final String login) {
-        this.login = login != null ? login : "";
+    public synchronized void setLogin(final String login) {
+        String newLogin = login != null ? login : "";
+        if (!newLogin.equals(this.login)) {
+            cachedPassword = null;
+        }
+        this.login = newLogin;
     }
 
-    public void setPassword(final String password) {
-        PasswordSafe.getInstance().set(CREDENTIAL_ATTRIBUTES, new Credentials(null, password != null ? password : ""));
+    public synchronized void setPassword(final String password) {
+        String newPassword = password != null ? password : "";
+        PasswordSafe.getInstance().set(CREDENTIAL_ATTRIBUTES, new Credentials(null, newPassword));
+        cachedPassword = Optional.of(newPassword);
     }
 
-    public void forgetPassword() {
+    public synchronized void forgetPassword() {
         PasswordSafe.getInstance().set(CREDENTIAL_ATTRIBUTES, null);
+        cachedPassword = Optional.absent();
     }
 
     public void setHost(final String host) {
@@ -228,6 +277,18 @@ public class GerritSettings implements PersistentStateComponent<Element>, Gerrit
         refreshNotifications = reviewNotifications;
     }
 
+    /**
+     * If enabled, change events of the Gerrit server (events-log plugin) trigger refreshes as they occur; polling
+     * remains as fallback.
+     */
+    public boolean getEventStream() {
+        return eventStream;
+    }
+
+    public void setEventStream(boolean eventStream) {
+        this.eventStream = eventStream;
+    }
+
     public void setPushToGerrit(boolean pushToGerrit) {
         this.pushToGerrit = pushToGerrit;
     }
@@ -276,6 +337,52 @@ public class GerritSettings implements PersistentStateComponent<Element>, Gerrit
         return cloneBaseUrl;
     }
 
+    /**
+     * Maximum number of (keep-alive) HTTP connections to the Gerrit host.
+     */
+    public int getConnectionPoolSize() {
+        return connectionPoolSize;
+    }
+
+    public void setConnectionPoolSize(int connectionPoolSize) {
+        this.connectionPoolSize = connectionPoolSize;
+    }
+
+    /**
+     * Seconds an idle HTTP connection is kept open for reuse.
+     */
+    public int getConnectionKeepAliveTimeout() {
+        return connectionKeepAliveTimeout;
+    }
+
+    public void setConnectionKeepAliveTimeout(int connectionKeepAliveTimeout) {
+        this.connectionKeepAliveTimeout = connectionKeepAliveTimeout;
+    }
+
+    /**
+     * Query length (in characters) above which the changes list is loaded with one query per chunk of projects
+     * instead of a single query for all projects of the workspace; 0 disables sharding.
+     */
+    public int getShardedQueryThreshold() {
+        return shardedQueryThreshold;
+    }
+
+    public void setShardedQueryThreshold(int shardedQueryThreshold) {
+        this.shardedQueryThreshold = shardedQueryThreshold;
+    }
+
+    /**
+     * Number of listed changes (from the top of the visible rows, plus starred changes) whose current patch set is
+     * fetched in the background, so that their diff can be shown without waiting for the network; 0 disables it.
+     */
+    public int getPrefetchChanges() {
+        return prefetchChanges;
+    }
+
+    public void setPrefetchChanges(int prefetchChanges) {
+        this.prefetchChanges = prefetchChanges;
+    }
+
     public void setLog(Logger log) {
         this.log = log;
     }
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.urswolfer.intellij.plugin.gerrit.git;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gerrit.extensions.common.FetchInfo;
+import com.google.gerrit.extensions.common.RevisionInfo;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.intellij.dvcs.repo.Repository;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vcs.ProjectLevelVcsManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
+import com.urswolfer.intellij.plugin.gerrit.rest.GerritUtil;
+import git4idea.commands.GitCommandResult;
+import git4idea.repo.GitRemote;
+import git4idea.repo.GitRepository;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches the current patch sets of listed changes in the background, so that selecting a change shows its diff
+ * without waiting for the network (see {@link GerritSettings#getPrefetchChanges()}).
+ *
+ * Prefetching has lowest priority: a single fetch runs at a time with a few refs only and a pause after each one
+ * (leaving bandwidth to everything else), and it is postponed while the user runs git operations (of this plugin or
+ * of the IDE, e.g. update project) or a repository is in the middle of a rebase / merge.
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class ChangesPrefetcher {
+    private static final long START_DELAY_MS = 2000;
+    private static final long PAUSE_MS = 2000;
+    private static final long BUSY_RETRY_DELAY_MS = 10 * 1000;
+    private static final int MAX_REFS_PER_FETCH = 5;
+    private static final int MAX_REQUESTED_COMMITS = 1000;
+
+    @Inject
+    private GerritGitUtil gerritGitUtil;
+    @Inject
+    private GerritUtil gerritUtil;
+    @Inject
+    private GitObjectPresence gitObjectPresence;
+    @Inject
+    private GerritSettings gerritSettings;
+    @Inject
+    private Logger log;
+
+    // guarded by this
+    private final Deque<PrefetchRequest> queue = new ArrayDeque<PrefetchRequest>();
+    private final Set<String> requestedCommits = Sets.newHashSet();
+    private ScheduledFuture<?> scheduledRun;
+
+    /**
+     * Queues the current patch sets of the provided changes (in order of importance; only the first ones up to the
+     * configured number are considered). Patch sets which have been queued before are skipped.
+     */
+    public void prefetch(Project project, List<ChangeInfo> changes) {
+        int maxChanges = gerritSettings.getPrefetchChanges();
+        if (maxChanges <= 0) {
+            return;
+        }
+        List<PrefetchRequest> requests = Lists.newArrayList();
+        for (ChangeInfo change : changes) {
+            if (requests.size() >= maxChanges) {
+                break;
+            }
+            PrefetchRequest request = createRequest(project, change);
+            if (request != null) {
+                requests.add(request);
+            }
+        }
+        synchronized (this) {
+            if (requestedCommits.size() > MAX_REQUESTED_COMMITS) {
+                requestedCommits.clear();
+            }
+            for (PrefetchRequest request : requests) {
+                if (requestedCommits.add(request.commitHash)) {
+                    queue.add(request);
+                }
+            }
+            if (!queue.isEmpty() && scheduledRun == null) {
+                schedule(START_DELAY_MS);
+            }
+        }
+    }
+
+    private PrefetchRequest createRequest(Project project, ChangeInfo change) {
+        if (change.currentRevision == null || change.revisions == null) {
+            return null;
+        }
+        RevisionInfo revision = change.revisions.get(change.currentRevision);
+        FetchInfo fetchInfo = gerritUtil.getFirstFetchInfo(revision);
+        if (fetchInfo == null) {
+            return null;
+        }
+        Optional<GitRepository> repository = gerritGitUtil.getRepositoryForGerritProject(project, change.project);
+        if (!repository.isPresent()) {
+            return null;
+        }
+        return new PrefetchRequest(project, repository.get(), change.currentRevision, fetchInfo);
+    }
+
+    private synchronized void schedule(long delayMs) {
+        scheduledRun = AppExecutorUtil.getAppScheduledExecutorService().schedule(new Runnable() {
+            @Override
+            public void run() {
+                runNext();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runNext() {
+        List<PrefetchRequest> batch = takeBatch();
+        long delayMs = PAUSE_MS;
+        if (!batch.isEmpty()) {
+            PrefetchRequest first = batch.get(0);
+            if (isBusy(first.project, first.repository) || !fetch(batch)) {
+                synchronized (this) {
+                    for (PrefetchRequest request : Lists.reverse(batch)) {
+                        queue.addFirst(request);
+                    }
+                }
+                delayMs = BUSY_RETRY_DELAY_MS;
+            }
+        }
+        synchronized (this) {
+            scheduledRun = null;
+            if (!queue.isEmpty()) {
+                schedule(delayMs);
+            }
+        }
+    }
+
+    /**
+     * @return the next requests for the same repository and remote which are not available locally yet
+     */
+    private List<PrefetchRequest> takeBatch() {
+        List<PrefetchRequest> batch = Lists.newArrayList();
+        while (batch.isEmpty()) {
+            List<PrefetchRequest> candidates = Lists.newArrayList();
+            synchronized (this) {
+                if (queue.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                PrefetchRequest first = queue.removeFirst();
+                candidates.add(first);
+                Iterator<PrefetchRequest> iterator = queue.iterator();
+                while (iterator.hasNext() && candidates.size() < MAX_REFS_PER_FETCH) {
+                    PrefetchRequest request = iterator.next();
+                    if (request.repository.equals(first.repository) && request.project.equals(first.project)) {
+                        candidates.add(request);
+                        iterator.remove();
+                    }
+                }
+            }
+            PrefetchRequest first = candidates.get(0);
+            if (first.project.isDisposed() || Disposer.isDisposed(first.repository)) {
+                continue;
+            }
+            List<String> commitHashes = Lists.newArrayList();
+            for (PrefetchRequest candidate : candidates) {
+                commitHashes.add(candidate.commitHash);
+            }
+            Set<String> presentCommits = gitObjectPresence.getPresentCommits(first.repository, commitHashes);
+            for (PrefetchRequest candidate : candidates) {
+                if (!presentCommits.contains(candidate.commitHash)) {
+                    batch.add(candidate);
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * @return false if fetching was skipped because the user runs a git operation
+     */
+    private boolean fetch(List<PrefetchRequest> batch) {
+        PrefetchRequest first = batch.get(0);
+        Optional<GitRemote> remote = gerritGitUtil.findRemoteForChange(first.repository, first.fetchInfo);
+        if (!remote.isPresent()) {
+            return true;
+        }
+        Set<String> refs = Sets.newLinkedHashSet();
+        for (PrefetchRequest request : batch) {
+            refs.add(request.fetchInfo.ref);
+        }
+        GitCommandResult result = gerritGitUtil.prefetchRefs(first.repository, remote.get(), refs);
+        if (result == null) {
+            return false;
+        }
+        if (!result.success()) {
+            log.debug("Prefetching " + refs + " failed: " + result.getErrorOutputAsJoinedString());
+        }
+        return true;
+    }
+
+    private static boolean isBusy(Project project, GitRepository repository) {
+        return ProjectLevelVcsManager.getInstance(project).isBackgroundVcsOperationRunning()
+            || repository.getState() != Repository.State.NORMAL;
+    }
+
+    private static final class PrefetchRequest {
+        private final Project project;
+        private final GitRepository repository;
+        private final String commitHash;
+        private final FetchInfo fetchInfo;
+
+        private PrefetchRequest(Project project, GitRepository repository, String commitHash, FetchInfo fetchInfo) {
+            this.project = project;
+            this.repository = repository;
+            this.commitHash = commitHash;
+            this.fetchInfo = fetchInfo;
+        }
+    }
+}
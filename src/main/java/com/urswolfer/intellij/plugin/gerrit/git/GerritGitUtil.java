@@ -21,6 +21,9 @@ import static git4idea.commands.GitSimpleEventDetector.Event.CHERRY_PICK_CONFLIC
 import static git4idea.commands.GitSimpleEventDetector.Event.LOCAL_CHANGES_OVERWRITTEN_BY_CHERRY_PICK;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.gerrit.extensions.common.ChangeInfo;
 import com.google.gerrit.extensions.common.FetchInfo;
 import com.google.inject.Inject;
@@ -60,6 +63,8 @@ import git4idea.commands.GitLineHandler;
 import git4idea.commands.GitLineHandlerListener;
 import git4idea.commands.GitSimpleEventDetector;
 import git4idea.commands.GitUntrackedFilesOverwrittenByOperationDetector;
+import git4idea.config.GitExecutableManager;
+import git4idea.config.GitVersion;
 import git4idea.fetch.GitFetchResult;
 import git4idea.fetch.GitFetchSupport;
 import git4idea.history.GitHistoryUtils;
@@ -75,7 +80,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * @author Urs Wolfer
@@ -91,6 +100,21 @@ public class GerritGitUtil {
     private GerritSettings gerritSettings;
     @Inject
     private NotificationService notificationService;
+    @Inject
+    private GerritProjectIndex gerritProjectIndex;
+    @Inject
+    private GitObjectPresence gitObjectPresence;
+
+    /**
+     * First version which supports 'git fetch --no-write-fetch-head'.
+     */
+    private static final GitVersion NO_WRITE_FETCH_HEAD_VERSION = new GitVersion(2, 29, 0, 0);
+
+    /**
+     * Held shared by git operations started by the user and exclusively by background prefetching (see
+     * {@link #prefetchRefs}), so that prefetching never runs concurrently to them.
+     */
+    private final ReadWriteLock userOperationLock = new ReentrantReadWriteLock();
 
     public Iterable<GitRepository> getRepositories(Project project) {
         GitRepositoryManager repositoryManager = GitUtil.getRepositoryManager(project);
@@ -98,24 +122,21 @@ public class GerritGitUtil {
     }
 
     public Optional<GitRepository> getRepositoryForGerritProject(Project project, String gerritProjectName) {
-        final Iterable<GitRepository> repositoriesFromRoots = getRepositories(project);
-        for (GitRepository repository : repositoriesFromRoots) {
-            for (GitRemote remote : repository.getRemotes()) {
-                if (remote.getName().equals(gerritProjectName)) {
-                    return Optional.of(repository);
-                }
-                for (String remoteUrl : remote.getUrls()) {
-                    remoteUrl = UrlUtils.stripGitExtension(remoteUrl);
-                    if (remoteUrl != null && remoteUrl.endsWith(gerritProjectName)) {
-                        return Optional.of(repository);
-                    }
-                }
-            }
-        }
-        return Optional.absent();
+        return gerritProjectIndex.getRepositoryForGerritProject(project, gerritProjectName);
     }
 
     public Optional<GitRemote> getRemoteForChange(Project project, GitRepository gitRepository, FetchInfo fetchInfo) {
+        Optional<GitRemote> remote = findRemoteForChange(gitRepository, fetchInfo);
+        if (!remote.isPresent()) {
+            NotificationBuilder notification = new NotificationBuilder(project, "Error",
+                String.format("Could not fetch commit because no remote url matches Gerrit host.<br/>" +
+                    "Git repository: '%s'.", gitRepository.getPresentableUrl()));
+            notificationService.notifyError(notification);
+        }
+        return remote;
+    }
+
+    public Optional<GitRemote> findRemoteForChange(GitRepository gitRepository, FetchInfo fetchInfo) {
         String url = fetchInfo.url;
         for (GitRemote remote : gitRepository.getRemotes()) {
             List<String> repositoryUrls = new ArrayList<String>();
@@ -128,10 +149,6 @@ public class GerritGitUtil {
                 }
             }
         }
-        NotificationBuilder notification = new NotificationBuilder(project, "Error",
-            String.format("Could not fetch commit because no remote url matches Gerrit host.<br/>" +
-                "Git repository: '%s'.", gitRepository.getPresentableUrl()));
-        notificationService.notifyError(notification);
         return Optional.absent();
     }
 
@@ -140,12 +157,12 @@ public class GerritGitUtil {
                             final FetchInfo fetchInfo,
                             final String commitHash,
                             @Nullable final Callable<Void> fetchCallback) {
-        GitVcs.runInBackground(new Task.Backgroundable(project, "Fetching...", false) {
+        GitVcs.runInBackground(new UserOperationTask(project, "Fetching...") {
             @Override
-            public void run(@NotNull ProgressIndicator indicator) {
+            protected void runOperation(@NotNull ProgressIndicator indicator) {
                 GitRemote remote;
                 String fetch;
-                boolean commitIsFetched = checkIfCommitIsFetched(gitRepository, commitHash);
+                boolean commitIsFetched = gitObjectPresence.isCommitPresent(gitRepository, commitHash);
                 if (commitIsFetched) {
                     // 'git fetch' works with a local path instead of a remote -> this way FETCH_HEAD is set
                     remote = new GitRemote(gitRepository.getRoot().getPath(),
@@ -172,12 +189,107 @@ public class GerritGitUtil {
         });
     }
 
+    /**
+     * Fetches the provided commits (commit hash -> fetch info) with a single 'git fetch' per remote (i.e. usually one
+     * network round trip for all of them). Commits which are available locally already are not fetched again.
+     *
+     * @param fetchCallback called once all commits are available locally (not called if fetching failed)
+     */
+    public void fetchChanges(final Project project,
+                             final GitRepository gitRepository,
+                             final Map<String, FetchInfo> fetchInfos,
+                             @Nullable final Callable<Void> fetchCallback) {
+        GitVcs.runInBackground(new UserOperationTask(project, "Fetching...") {
+            @Override
+            protected void runOperation(@NotNull ProgressIndicator indicator) {
+                Set<String> presentCommits = gitObjectPresence.getPresentCommits(gitRepository, fetchInfos.keySet());
+                Map<GitRemote, Set<String>> refsByRemote = Maps.newLinkedHashMap();
+                for (Map.Entry<String, FetchInfo> entry : fetchInfos.entrySet()) {
+                    if (presentCommits.contains(entry.getKey())) {
+                        continue;
+                    }
+                    GitRemote remote = getRemoteForChange(project, gitRepository, entry.getValue()).orNull();
+                    if (remote == null) {
+                        return;
+                    }
+                    Set<String> refs = refsByRemote.get(remote);
+                    if (refs == null) {
+                        refs = Sets.newLinkedHashSet();
+                        refsByRemote.put(remote, refs);
+                    }
+                    refs.add(entry.getValue().ref);
+                }
+                for (Map.Entry<GitRemote, Set<String>> entry : refsByRemote.entrySet()) {
+                    GitCommandResult result = fetchRefs(gitRepository, entry.getKey(), entry.getValue(), true, false);
+                    if (!result.success()) {
+                        notificationService.notifyError(new NotificationBuilder(project, "Fetch Error",
+                            result.getErrorOutputAsHtmlString()));
+                        return;
+                    }
+                }
+
+                try {
+                    if (fetchCallback != null) {
+                        fetchCallback.call();
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs 'git fetch &lt;remote&gt; &lt;ref&gt;...': {@link GitFetchSupport} only accepts a single refspec per fetch.
+     */
+    private GitCommandResult fetchRefs(GitRepository repository,
+                                       GitRemote remote,
+                                       Collection<String> refs,
+                                       boolean writeFetchHead,
+                                       boolean silent) {
+        final GitLineHandler h = new GitLineHandler(repository.getProject(), repository.getRoot(), GitCommand.FETCH);
+        h.setUrls(remote.getUrls());
+        h.setSilent(silent); // silent commands are not shown in the VCS console
+        h.addParameters("--no-tags");
+        if (!writeFetchHead) {
+            h.addParameters("--no-write-fetch-head");
+        }
+        h.addParameters(remote.getName());
+        h.addParameters(Lists.newArrayList(refs));
+        return git.runCommand(new Computable<GitLineHandler>() {
+            @Override
+            public GitLineHandler compute() {
+                return h;
+            }
+        });
+    }
+
+    /**
+     * Fetches the refs in the background without any notification; skipped (returns null) while a git operation of
+     * the user is running. User operations started during the fetch wait until it has completed.
+     *
+     * FETCH_HEAD is left untouched where git supports it (2.29+); actions of this plugin do not rely on it anyway
+     * (they use the commit hash).
+     */
+    @Nullable
+    public GitCommandResult prefetchRefs(GitRepository repository, GitRemote remote, Collection<String> refs) {
+        if (!userOperationLock.writeLock().tryLock()) {
+            return null;
+        }
+        try {
+            GitVersion version = GitExecutableManager.getInstance().getVersion(repository.getProject());
+            return fetchRefs(repository, remote, refs, !version.isLaterOrEqual(NO_WRITE_FETCH_HEAD_VERSION), true);
+        } finally {
+            userOperationLock.writeLock().unlock();
+        }
+    }
+
     public void cherryPickChange(final Project project, final ChangeInfo changeInfo, final String revisionId) {
         FileDocumentManager.getInstance().saveAllDocuments();
         ChangeListManagerImpl.getInstanceImpl(project).blockModalNotifications();
 
-        new Task.Backgroundable(project, "Cherry-picking...", false) {
-            public void run(@NotNull ProgressIndicator indicator) {
+        new UserOperationTask(project, "Cherry-picking...") {
+            protected void runOperation(@NotNull ProgressIndicator indicator) {
                 try {
                     Optional<GitRepository> gitRepositoryOptional = getRepositoryForGerritProject(project, changeInfo.project);
                     if (!gitRepositoryOptional.isPresent()) {
@@ -245,6 +357,25 @@ public class GerritGitUtil {
     }
 
 
+    private abstract class UserOperationTask extends Task.Backgroundable {
+
+        private UserOperationTask(@Nullable Project project, @NotNull String title) {
+            super(project, title, false);
+        }
+
+        @Override
+        public final void run(@NotNull ProgressIndicator indicator) {
+            userOperationLock.readLock().lock();
+            try {
+                runOperation(indicator);
+            } finally {
+                userOperationLock.readLock().unlock();
+            }
+        }
+
+        protected abstract void runOperation(@NotNull ProgressIndicator indicator);
+    }
+
     /**
      * Copy of: git4idea.cherrypick.GitCherryPicker.CherryPickConflictResolver (which is private)
      */
@@ -301,27 +432,6 @@ public class GerritGitUtil {
         }
     }
 
-    public boolean checkIfCommitIsFetched(GitRepository repository, String commitHash) {
-        FormattedGitLineHandlerListener listener = new FormattedGitLineHandlerListener();
-        final GitLineHandler h = new GitLineHandler(repository.getProject(), repository.getRoot(), GitCommand.SHOW);
-        h.setSilent(false);
-        h.setStdoutSuppressed(false);
-        h.addParameters(commitHash);
-        h.addParameters("--format=short");
-        h.endOptions();
-        h.addLineListener(listener);
-        GitCommandResult gitCommandResult = git.runCommand(new Computable<GitLineHandler>() {
-            @Override
-            public GitLineHandler compute() {
-                return h;
-            }
-        });
-        boolean success = gitCommandResult.success();
-        List<String> output = gitCommandResult.getOutput();
-        boolean isCommit = !output.isEmpty() && output.get(0).startsWith("commit");
-        return success && isCommit;
-    }
-
     @NotNull
     private Pair<List<GitCommit>, List<GitCommit>> loadCommitsToCompare(@NotNull GitRepository repository, @NotNull final String branchName, @NotNull final Project project) {
         final List<GitCommit> headToBranch;
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.git;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.intellij.dvcs.repo.VcsRepositoryManager;
+import com.intellij.dvcs.repo.VcsRepositoryMappingListener;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.util.messages.MessageBusConnection;
+import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
+import com.urswolfer.intellij.plugin.gerrit.util.UrlUtils;
+import git4idea.GitUtil;
+import git4idea.repo.GitRemote;
+import git4idea.repo.GitRepository;
+import git4idea.repo.GitRepositoryChangeListener;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps the Git repositories of a project to Gerrit project names (derived from the remote URLs).
+ *
+ * The mapping is computed once per project and kept until the repository mapping or the remotes of a repository
+ * change (or the Gerrit host / clone base URL settings), so that building queries for many repositories does not
+ * parse all remote URLs again.
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class GerritProjectIndex {
+
+    @Inject
+    private GerritSettings gerritSettings;
+
+    // guarded by this
+    private final Map<Project, Index> indexes = Maps.newHashMap();
+    private final Set<Project> subscribedProjects = Sets.newHashSet();
+
+    /**
+     * @return the Gerrit project names of all repositories of the project (in repository order)
+     */
+    public List<String> getProjectNames(Project project) {
+        return getIndex(project).allProjectNames;
+    }
+
+    /**
+     * @return the Gerrit project names of the provided repository (one per remote URL pointing to Gerrit)
+     */
+    public List<String> getProjectNames(Project project, GitRepository repository) {
+        RepositoryEntry entry = getIndex(project).repositories.get(repository);
+        if (entry == null) {
+            return getProjectNames(repository.getRemotes(), gerritSettings.getHost(), gerritSettings.getCloneBaseUrl());
+        }
+        return entry.projectNames;
+    }
+
+    /**
+     * @return the repository with a remote named like the Gerrit project or with a remote URL pointing to it
+     */
+    public Optional<GitRepository> getRepositoryForGerritProject(Project project, String gerritProjectName) {
+        Index index = getIndex(project);
+        synchronized (index.repositoriesByGerritProject) {
+            Optional<GitRepository> repository = index.repositoriesByGerritProject.get(gerritProjectName);
+            if (repository == null) {
+                repository = findRepository(index, gerritProjectName);
+                index.repositoriesByGerritProject.put(gerritProjectName, repository);
+            }
+            return repository;
+        }
+    }
+
+    public synchronized void invalidate(Project project) {
+        indexes.remove(project);
+    }
+
+    private synchronized Index getIndex(final Project project) {
+        List<GitRepository> repositories = GitUtil.getRepositoryManager(project).getRepositories();
+        String host = gerritSettings.getHost();
+        String cloneBaseUrl = gerritSettings.getCloneBaseUrl();
+        Index index = indexes.get(project);
+        // the repository list is compared as well: listeners of mapping changes are called in no particular order
+        if (index == null
+            || !index.repositories.keySet().equals(Sets.newHashSet(repositories))
+            || !Objects.equal(index.host, host)
+            || !Objects.equal(index.cloneBaseUrl, cloneBaseUrl)) {
+            index = new Index(repositories, host, cloneBaseUrl);
+            indexes.put(project, index);
+            subscribeIfRequired(project);
+        }
+        return index;
+    }
+
+    private void subscribeIfRequired(final Project project) {
+        if (!subscribedProjects.add(project)) {
+            return;
+        }
+        MessageBusConnection connection = project.getMessageBus().connect(project);
+        connection.subscribe(VcsRepositoryManager.VCS_REPOSITORY_MAPPING_UPDATED, new VcsRepositoryMappingListener() {
+            @Override
+            public void mappingChanged() {
+                invalidate(project);
+            }
+        });
+        connection.subscribe(GitRepository.GIT_REPO_CHANGE, new GitRepositoryChangeListener() {
+            @Override
+            public void repositoryChanged(@NotNull GitRepository repository) {
+                if (haveRemotesChanged(project, repository)) {
+                    invalidate(project);
+                }
+            }
+        });
+        Disposer.register(project, () -> {
+            synchronized (GerritProjectIndex.this) {
+                indexes.remove(project);
+                subscribedProjects.remove(project);
+            }
+        });
+    }
+
+    private synchronized boolean haveRemotesChanged(Project project, GitRepository repository) {
+        Index index = indexes.get(project);
+        if (index == null) {
+            return false;
+        }
+        RepositoryEntry entry = index.repositories.get(repository);
+        return entry == null || !entry.remotes.equals(Lists.newArrayList(repository.getRemotes()));
+    }
+
+    private static Optional<GitRepository> findRepository(Index index, String gerritProjectName) {
+        for (RepositoryEntry entry : index.repositories.values()) {
+            for (GitRemote remote : entry.remotes) {
+                if (remote.getName().equals(gerritProjectName)) {
+                    return Optional.of(entry.repository);
+                }
+            }
+            for (String remoteUrl : entry.strippedRemoteUrls) {
+                if (remoteUrl.endsWith(gerritProjectName)) {
+                    return Optional.of(entry.repository);
+                }
+            }
+        }
+        return Optional.absent();
+    }
+
+    public static List<String> getProjectNames(Collection<GitRemote> remotes, String host, String cloneBaseUrl) {
+        List<String> projectNames = Lists.newArrayList();
+        for (GitRemote remote : remotes) {
+            for (String remoteUrl : remote.getUrls()) {
+                remoteUrl = UrlUtils.stripGitExtension(remoteUrl);
+                String projectName = getProjectName(host, cloneBaseUrl, remoteUrl);
+                if (!Strings.isNullOrEmpty(projectName) && remoteUrl.endsWith(projectName)) {
+                    projectNames.add(projectName);
+                }
+            }
+        }
+        return projectNames;
+    }
+
+    public static String getProjectName(String gerritUrl, String gerritCloneBaseUrl, String url) {
+        String baseUrl = Strings.isNullOrEmpty(gerritCloneBaseUrl) ? gerritUrl : gerritCloneBaseUrl;
+        if (!baseUrl.endsWith("/")) {
+            baseUrl = baseUrl + "/";
+        }
+
+        String basePath = UrlUtils.createUriFromGitConfigString(baseUrl).getPath();
+        String path = UrlUtils.createUriFromGitConfigString(url).getPath();
+
+        if (path.length() >= basePath.length() && path.startsWith(basePath)) {
+            path = path.substring(basePath.length());
+        }
+
+        path = UrlUtils.stripGitExtension(path);
+
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        // gerrit project names usually don't start with a slash
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+
+        return path;
+    }
+
+    private static final class Index {
+        private final String host;
+        private final String cloneBaseUrl;
+        private final Map<GitRepository, RepositoryEntry> repositories = Maps.newLinkedHashMap();
+        private final List<String> allProjectNames;
+        private final Map<String, Optional<GitRepository>> repositoriesByGerritProject = Maps.newHashMap();
+
+        private Index(List<GitRepository> repositories, String host, String cloneBaseUrl) {
+            this.host = host;
+            this.cloneBaseUrl = cloneBaseUrl;
+            List<String> projectNames = Lists.newArrayList();
+            for (GitRepository repository : repositories) {
+                RepositoryEntry entry = new RepositoryEntry(repository, host, cloneBaseUrl);
+                this.repositories.put(repository, entry);
+                projectNames.addAll(entry.projectNames);
+            }
+            this.allProjectNames = ImmutableList.copyOf(projectNames);
+        }
+    }
+
+    private static final class RepositoryEntry {
+        private final GitRepository repository;
+        private final List<GitRemote> remotes;
+        private final List<String> strippedRemoteUrls = Lists.newArrayList();
+        private final List<String> projectNames;
+
+        private RepositoryEntry(GitRepository repository, String host, String cloneBaseUrl) {
+            this.repository = repository;
+            this.remotes = Lists.newArrayList(repository.getRemotes());
+            for (GitRemote remote : remotes) {
+                for (String remoteUrl : remote.getUrls()) {
+                    String strippedUrl = UrlUtils.stripGitExtension(remoteUrl);
+                    if (strippedUrl != null) {
+                        strippedRemoteUrls.add(strippedUrl);
+                    }
+                }
+            }
+            this.projectNames = ImmutableList.copyOf(getProjectNames(remotes, host, cloneBaseUrl));
+        }
+    }
+}
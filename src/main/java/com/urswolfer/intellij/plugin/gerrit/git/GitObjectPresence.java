@@ -0,0 +1,200 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.urswolfer.intellij.plugin.gerrit.git;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Disposer;
+import git4idea.config.GitExecutableManager;
+import git4idea.repo.GitRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Answers whether commits are available in a local repository. Every repository gets one long-running
+ * {@code git cat-file --batch-check} process (started on the first query), so that a check does not cost a git
+ * process start. The process is stopped when the repository is disposed (at the latest with its project).
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class GitObjectPresence {
+    /**
+     * Smallest pipe buffer of the supported platforms (Windows).
+     */
+    private static final int PIPE_BUFFER_SIZE = 4096;
+    /**
+     * Longest answer line: {@code <hash> <type> <size>} with a SHA-256 hash.
+     */
+    private static final int MAX_ANSWER_LENGTH = 64 + " commit ".length() + 20 + 1;
+    /**
+     * Hashes are written in chunks and the answers are only read after each chunk: git blocks once its output is
+     * not read, so the answers of a chunk must fit into the pipe buffer.
+     */
+    static final int CHUNK_SIZE = PIPE_BUFFER_SIZE / MAX_ANSWER_LENGTH;
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-fA-F]{4,64}");
+
+    @Inject
+    private Logger log;
+
+    // guarded by this
+    private final Map<GitRepository, BatchCheck> batchChecks = Maps.newHashMap();
+
+    public boolean isCommitPresent(GitRepository repository, String commitHash) {
+        return !getPresentCommits(repository, Collections.singleton(commitHash)).isEmpty();
+    }
+
+    /**
+     * @return the provided hashes which reference a commit in the repository
+     */
+    public Set<String> getPresentCommits(GitRepository repository, Collection<String> commitHashes) {
+        List<String> validHashes = Lists.newArrayList();
+        for (String commitHash : commitHashes) {
+            if (commitHash != null && HASH_PATTERN.matcher(commitHash).matches()) {
+                validHashes.add(commitHash);
+            }
+        }
+        if (validHashes.isEmpty()) {
+            return Collections.emptySet();
+        }
+        // a process might have terminated (e.g. killed); it is started again once
+        for (int attempt = 0; attempt < 2; attempt++) {
+            BatchCheck batchCheck = getBatchCheck(repository);
+            if (batchCheck == null) {
+                break;
+            }
+            try {
+                return batchCheck.getPresentCommits(validHashes);
+            } catch (IOException e) {
+                log.debug("git cat-file failed for " + repository.getPresentableUrl(), e);
+                stop(repository, batchCheck);
+            }
+        }
+        return Collections.emptySet();
+    }
+
+    private synchronized BatchCheck getBatchCheck(final GitRepository repository) {
+        BatchCheck batchCheck = batchChecks.get(repository);
+        if (batchCheck != null || Disposer.isDisposed(repository)) {
+            return batchCheck;
+        }
+        try {
+            String gitExecutable = GitExecutableManager.getInstance().getPathToGit(repository.getProject());
+            GeneralCommandLine commandLine = new GeneralCommandLine(gitExecutable, "cat-file", "--batch-check")
+                .withWorkDirectory(repository.getRoot().getPath());
+            Process process = commandLine.toProcessBuilder()
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            batchCheck = new BatchCheck(process);
+        } catch (IOException | ExecutionException e) {
+            log.warn("Could not start git cat-file for " + repository.getPresentableUrl(), e);
+            return null;
+        }
+        batchChecks.put(repository, batchCheck);
+        final BatchCheck registeredBatchCheck = batchCheck;
+        Disposer.register(repository, new Disposable() {
+            @Override
+            public void dispose() {
+                stop(repository, registeredBatchCheck);
+            }
+        });
+        return batchCheck;
+    }
+
+    private void stop(GitRepository repository, BatchCheck batchCheck) {
+        synchronized (this) {
+            if (batchChecks.get(repository) == batchCheck) {
+                batchChecks.remove(repository);
+            }
+        }
+        batchCheck.stop();
+    }
+
+    /**
+     * @param line output line of {@code git cat-file --batch-check}: {@code <hash> <type> <size>} or
+     *             {@code <input> missing}
+     */
+    static boolean isCommit(String line) {
+        String[] parts = line.split(" ");
+        return parts.length == 3 && "commit".equals(parts[1]);
+    }
+
+    /**
+     * Queries a running {@code git cat-file --batch-check} process.
+     */
+    static final class BatchCheck {
+        private final Process process;
+        private final Writer writer;
+        private final BufferedReader reader;
+
+        BatchCheck(Process process) {
+            this.process = process;
+            this.writer = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+            this.reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        synchronized Set<String> getPresentCommits(List<String> commitHashes) throws IOException {
+            Set<String> presentCommits = Sets.newHashSet();
+            for (List<String> chunk : Iterables.partition(commitHashes, CHUNK_SIZE)) {
+                for (String commitHash : chunk) {
+                    writer.write(commitHash);
+                    writer.write('\n');
+                }
+                writer.flush();
+                for (String commitHash : chunk) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        throw new IOException("git cat-file terminated");
+                    }
+                    if (isCommit(line)) {
+                        presentCommits.add(commitHash);
+                    }
+                }
+            }
+            return presentCommits;
+        }
+
+        void stop() {
+            try {
+                writer.close(); // end of input: git terminates
+            } catch (IOException e) {
+                // terminated already
+            }
+            process.destroy();
+        }
+    }
+}
@@ -18,9 +18,6 @@
 
 package com.urswolfer.intellij.plugin.gerrit.git;
 
-import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.gerrit.extensions.common.FetchInfo;
 import com.google.gerrit.extensions.common.RevisionInfo;
@@ -30,7 +27,6 @@ import com.urswolfer.intellij.plugin.gerrit.util.NotificationBuilder;
 import com.urswolfer.intellij.plugin.gerrit.util.NotificationService;
 import git4idea.repo.GitRepository;
 
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
@@ -47,7 +43,6 @@ public class RevisionFetcher {
     private final GitRepository gitRepository;
 
     private final Map<String, RevisionInfo> revisionInfoList = Maps.newLinkedHashMap();
-    private final List<FetchCallback> fetchCallbacks = Lists.newArrayList();
 
     public RevisionFetcher(GerritUtil gerritUtil,
                            GerritGitUtil gerritGitUtil,
@@ -67,24 +62,21 @@ public class RevisionFetcher {
     }
 
     /**
-     * Fetch the changes for the provided revisions.
+     * Fetch the changes for the provided revisions (with a single 'git fetch' for all revisions which are not available
+     * locally yet).
      * @param callback the callback will be executed as soon as all revisions have been fetched successfully
      */
     public void fetch(final Callable<Void> callback) {
+        Map<String, FetchInfo> fetchInfos = Maps.newLinkedHashMap();
         for (Map.Entry<String, RevisionInfo> entry : revisionInfoList.entrySet()) {
-            FetchCallback fetchCallback = new FetchCallback(callback);
-            fetchCallbacks.add(fetchCallback);
-            fetchChange(entry.getKey(), entry.getValue(), fetchCallback);
-        }
-    }
-
-    private void fetchChange(String commitHash, RevisionInfo revisionInfo, FetchCallback fetchCallback) {
-        FetchInfo fetchInfo = gerritUtil.getFirstFetchInfo(revisionInfo);
-        if (fetchInfo == null) {
-            notifyError();
-        } else {
-            gerritGitUtil.fetchChange(project, gitRepository, fetchInfo, commitHash, fetchCallback);
+            FetchInfo fetchInfo = gerritUtil.getFirstFetchInfo(entry.getValue());
+            if (fetchInfo == null) {
+                notifyError();
+                return;
+            }
+            fetchInfos.put(entry.getKey(), fetchInfo);
         }
+        gerritGitUtil.fetchChanges(project, gitRepository, fetchInfos, callback);
     }
 
     private void notifyError() {
@@ -95,34 +87,4 @@ public class RevisionFetcher {
         );
         notificationService.notifyError(notification);
     }
-
-    private final class FetchCallback implements Callable<Void> {
-        private final Callable<Void> callback;
-        private boolean returned = false;
-
-        private FetchCallback(Callable<Void> callback) {
-            this.callback = callback;
-        }
-
-        @Override
-        public Void call() throws Exception {
-            try {
-                return null;
-            } finally {
-                returned = true;
-                if (allFetchCallbacksReturned()) {
-                    callback.call();
-                }
-            }
-        }
-
-        private synchronized boolean allFetchCallbacksReturned() {
-            return Iterables.all(fetchCallbacks, new Predicate<FetchCallback>() {
-                @Override
-                public boolean apply(FetchCallback fetchCallback) {
-                    return fetchCallback.returned;
-                }
-            });
-        }
-    }
 }
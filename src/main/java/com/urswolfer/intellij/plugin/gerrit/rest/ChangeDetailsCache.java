@@ -0,0 +1,197 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.base.Objects;
+import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gerrit.extensions.common.ChangeMessageInfo;
+import com.google.inject.Singleton;
+
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache for change details (see {@link GerritUtil#getChangeDetails}).
+ *
+ * An entry is only returned when it is at least as new as the {@code updated} timestamp of the change as known by
+ * the caller (usually the row of the changes list); otherwise the details need to be loaded again.
+ * The cache size is limited by an (estimated) memory budget.
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class ChangeDetailsCache {
+
+    private static final long DEFAULT_MAX_MEMORY_BYTES = 16 * 1024 * 1024;
+
+    private static final int ESTIMATED_CHANGE_BYTES = 4 * 1024;
+    private static final int ESTIMATED_REVISION_BYTES = 2 * 1024;
+    private static final int ESTIMATED_MESSAGE_BYTES = 256;
+
+    private final long maxMemoryBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    private long usedMemoryBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ChangeDetailsCache() {
+        this(DEFAULT_MAX_MEMORY_BYTES);
+    }
+
+    public ChangeDetailsCache(long maxMemoryBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+    }
+
+    /**
+     * @param updated the last known update timestamp of the change; null if unknown (then the cache is bypassed)
+     * @return the cached change details or null if there are no details cached or if they are outdated
+     */
+    public synchronized ChangeInfo get(String host, int changeNr, Timestamp updated) {
+        Entry entry = entries.get(new Key(host, changeNr));
+        if (entry == null || updated == null || entry.changeInfo.updated.before(updated)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.changeInfo;
+    }
+
+    public synchronized void put(String host, ChangeInfo changeInfo) {
+        if (changeInfo == null || changeInfo.updated == null || changeInfo._number == 0) {
+            return; // incomplete (e.g. failed request); do not cache
+        }
+        Key key = new Key(host, changeInfo._number);
+        Entry entry = new Entry(changeInfo);
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            usedMemoryBytes -= previous.estimatedBytes;
+        }
+        usedMemoryBytes += entry.estimatedBytes;
+        evictIfRequired();
+    }
+
+    /**
+     * Removes all entries of the change with the provided change id (e.g. after posting a review for it).
+     */
+    public synchronized void invalidate(String changeId) {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (changeId.equals(entry.changeInfo.id) || changeId.equals(entry.changeInfo.changeId)) {
+                usedMemoryBytes -= entry.estimatedBytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidate(String host, int changeNr) {
+        Entry entry = entries.remove(new Key(host, changeNr));
+        if (entry != null) {
+            usedMemoryBytes -= entry.estimatedBytes;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        usedMemoryBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getEstimatedMemoryBytes() {
+        return usedMemoryBytes;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private void evictIfRequired() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        // always keep the most recently added entry
+        while (usedMemoryBytes > maxMemoryBytes && entries.size() > 1 && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            usedMemoryBytes -= eldest.estimatedBytes;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static long estimateBytes(ChangeInfo changeInfo) {
+        long bytes = ESTIMATED_CHANGE_BYTES;
+        if (changeInfo.revisions != null) {
+            bytes += (long) changeInfo.revisions.size() * ESTIMATED_REVISION_BYTES;
+        }
+        if (changeInfo.messages != null) {
+            for (ChangeMessageInfo message : changeInfo.messages) {
+                bytes += ESTIMATED_MESSAGE_BYTES;
+                if (message.message != null) {
+                    bytes += 2L * message.message.length();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static final class Entry {
+        private final ChangeInfo changeInfo;
+        private final long estimatedBytes;
+
+        private Entry(ChangeInfo changeInfo) {
+            this.changeInfo = changeInfo;
+            this.estimatedBytes = estimateBytes(changeInfo);
+        }
+    }
+
+    private static final class Key {
+        private final String host;
+        private final int changeNr;
+
+        private Key(String host, int changeNr) {
+            this.host = host;
+            this.changeNr = changeNr;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return changeNr == key.changeNr && Objects.equal(host, key.host);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(host, changeNr);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.base.Objects;
+
+/**
+ * A change related event of the Gerrit server (e.g. "patchset-created", "comment-added", "change-merged"); see
+ * {@link ChangeEventParser}.
+ *
+ * @author Urs Wolfer
+ */
+public final class ChangeEvent {
+    private final String type;
+    private final String project;
+    private final String branch;
+    private final String changeId;
+    private final int number;
+    private final long createdOnMs;
+
+    public ChangeEvent(String type, String project, String branch, String changeId, int number, long createdOnMs) {
+        this.type = type;
+        this.project = project;
+        this.branch = branch;
+        this.changeId = changeId;
+        this.number = number;
+        this.createdOnMs = createdOnMs;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    /**
+     * @return the Change-Id ("I...")
+     */
+    public String getChangeId() {
+        return changeId;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * @return time of the event (milliseconds since epoch; Gerrit provides seconds)
+     */
+    public long getCreatedOnMs() {
+        return createdOnMs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ChangeEvent that = (ChangeEvent) o;
+        return number == that.number
+            && createdOnMs == that.createdOnMs
+            && Objects.equal(type, that.type)
+            && Objects.equal(project, that.project)
+            && Objects.equal(changeId, that.changeId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(type, project, changeId, number, createdOnMs);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + project + "~" + number + " (" + createdOnMs + ")";
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads Gerrit events (as written by {@code gerrit stream-events} and the events-log plugin: one JSON object per
+ * line) one by one while they arrive. Events which do not refer to a change (e.g. "ref-updated") are skipped.
+ *
+ * @author Urs Wolfer
+ */
+public class ChangeEventParser {
+
+    private final Gson gson = new Gson();
+    private final JsonReader jsonReader;
+
+    public ChangeEventParser(Reader reader) {
+        jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true); // a sequence of top level values
+    }
+
+    /**
+     * Blocks until the next change event is available.
+     *
+     * @return the next change event or null at the end of the stream
+     */
+    public ChangeEvent next() throws IOException {
+        while (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+            RawEvent event;
+            try {
+                event = gson.fromJson(jsonReader, RawEvent.class);
+            } catch (JsonParseException e) {
+                throw new IOException("Invalid Gerrit event: " + e.getMessage(), e);
+            }
+            if (event != null && event.type != null && event.change != null && event.change.number != null) {
+                return new ChangeEvent(event.type, event.change.project, event.change.branch, event.change.id,
+                    event.change.number.getAsInt(), event.eventCreatedOn * 1000);
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unused") // fields set by Gson
+    private static final class RawEvent {
+        private String type;
+        private RawChange change;
+        private long eventCreatedOn;
+    }
+
+    @SuppressWarnings("unused") // fields set by Gson
+    private static final class RawChange {
+        private String project;
+        private String branch;
+        private String id;
+        private JsonPrimitive number; // a string in older Gerrit versions
+    }
+}
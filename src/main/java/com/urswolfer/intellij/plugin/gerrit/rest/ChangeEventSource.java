@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Provides Gerrit events as text (one JSON event per line, see {@link ChangeEventParser}).
+ *
+ * @author Urs Wolfer
+ */
+public interface ChangeEventSource {
+
+    /**
+     * Opens the events; the returned reader blocks while waiting for further events (push based source) or ends
+     * after the events which are available (log based source, opened again after {@link #getReopenDelayMs()}).
+     *
+     * @param sinceMs time of the last processed event (milliseconds since epoch) or 0 to get new events only
+     * @throws UnavailableException if the server does not provide events (no further attempts are made)
+     */
+    Reader open(long sinceMs) throws IOException;
+
+    /**
+     * @return time to wait before opening the events again once the reader has ended
+     */
+    long getReopenDelayMs();
+
+    class UnavailableException extends IOException {
+        public UnavailableException(String message) {
+            super(message);
+        }
+    }
+}
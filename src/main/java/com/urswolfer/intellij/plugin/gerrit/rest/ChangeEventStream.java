@@ -0,0 +1,266 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.util.Consumer;
+import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Passes the change events of the Gerrit server to listeners (on the EDT) while they occur, if enabled (see
+ * {@link GerritSettings#getEventStream()}). Events are read from a {@link ChangeEventSource} in the background; the
+ * source is opened again after it has ended or failed (with increasing delays), starting at the last event, so that
+ * no events get lost in between.
+ *
+ * Listeners should still poll (less frequently) while {@link #isConnected()} is false.
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class ChangeEventStream {
+    private static final long MIN_RETRY_DELAY_MS = 5 * 1000;
+    private static final long MAX_RETRY_DELAY_MS = 5 * 60 * 1000;
+    /**
+     * Events are remembered for this long to drop duplicates when the source is opened again.
+     */
+    private static final long DUPLICATE_WINDOW_MS = 60 * 1000;
+
+    @Inject
+    private GerritSettings gerritSettings;
+    @Inject
+    private EventsLogEventSource eventSource;
+    @Inject
+    private Logger log;
+
+    // guarded by this
+    private final List<Consumer<ChangeEvent>> listeners = Lists.newArrayList();
+    private Future<?> connection;
+    private int connectionNumber;
+    private Reader currentReader;
+    private boolean connected;
+    private boolean unavailable;
+    private long lastEventTime;
+    private final Map<ChangeEvent, Long> recentEvents = Maps.newLinkedHashMap();
+
+    /**
+     * Registers a listener until the provided disposable gets disposed.
+     */
+    public void addListener(final Consumer<ChangeEvent> listener, Disposable parentDisposable) {
+        synchronized (this) {
+            listeners.add(listener);
+        }
+        Disposer.register(parentDisposable, new Disposable() {
+            @Override
+            public void dispose() {
+                synchronized (ChangeEventStream.this) {
+                    listeners.remove(listener);
+                }
+                stopIfUnused();
+            }
+        });
+        startIfRequired();
+    }
+
+    /**
+     * @return true if events are being received; false if the stream is disabled, not available or failing
+     */
+    public synchronized boolean isConnected() {
+        return connected;
+    }
+
+    public void handleConfigurationChange() {
+        stop();
+        synchronized (this) {
+            unavailable = false;
+            lastEventTime = 0;
+            recentEvents.clear();
+        }
+        startIfRequired();
+    }
+
+    private synchronized void startIfRequired() {
+        if (connection != null || unavailable || listeners.isEmpty() || !gerritSettings.getEventStream()
+            || Strings.isNullOrEmpty(gerritSettings.getHost())) {
+            return;
+        }
+        if (lastEventTime == 0) {
+            lastEventTime = System.currentTimeMillis(); // only new events
+        }
+        final int number = ++connectionNumber;
+        connection = ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                readContinuously(number);
+            }
+        });
+    }
+
+    private void stopIfUnused() {
+        synchronized (this) {
+            if (!listeners.isEmpty()) {
+                return;
+            }
+        }
+        stop();
+    }
+
+    private void stop() {
+        Future<?> connection;
+        Reader reader;
+        synchronized (this) {
+            connection = this.connection;
+            reader = currentReader;
+            this.connection = null;
+            connectionNumber++;
+            currentReader = null;
+            connected = false;
+        }
+        if (connection != null) {
+            connection.cancel(true);
+        }
+        closeQuietly(reader); // a blocking read does not react to interrupts
+    }
+
+    private void readContinuously(int number) {
+        long retryDelay = MIN_RETRY_DELAY_MS;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long delay;
+                try {
+                    read(eventSource, new Consumer<ChangeEvent>() {
+                        @Override
+                        public void consume(ChangeEvent event) {
+                            dispatch(event);
+                        }
+                    });
+                    retryDelay = MIN_RETRY_DELAY_MS;
+                    delay = eventSource.getReopenDelayMs();
+                } catch (ChangeEventSource.UnavailableException e) {
+                    log.info("Gerrit change events are not available: " + e.getMessage());
+                    synchronized (this) {
+                        unavailable = true;
+                    }
+                    return;
+                } catch (IOException e) {
+                    synchronized (this) {
+                        connected = false;
+                    }
+                    log.debug("Failed to read Gerrit change events.", e);
+                    delay = retryDelay;
+                    retryDelay = Math.min(MAX_RETRY_DELAY_MS, retryDelay * 2);
+                }
+                Thread.sleep(delay);
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        } finally {
+            synchronized (this) {
+                if (number == connectionNumber) {
+                    connection = null;
+                    connected = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the source at the last event and passes all new events (no duplicates) to the consumer until the source
+     * ends.
+     */
+    void read(ChangeEventSource source, Consumer<ChangeEvent> consumer) throws IOException {
+        long since;
+        synchronized (this) {
+            since = lastEventTime;
+        }
+        Reader reader = source.open(since);
+        synchronized (this) {
+            currentReader = reader;
+            connected = true;
+        }
+        try {
+            ChangeEventParser parser = new ChangeEventParser(reader);
+            ChangeEvent event;
+            while ((event = parser.next()) != null) {
+                if (isNew(event)) {
+                    consumer.consume(event);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                if (currentReader == reader) {
+                    currentReader = null;
+                }
+            }
+            closeQuietly(reader);
+        }
+    }
+
+    private synchronized boolean isNew(ChangeEvent event) {
+        if (event.getCreatedOnMs() < lastEventTime - DUPLICATE_WINDOW_MS || recentEvents.containsKey(event)) {
+            return false;
+        }
+        lastEventTime = Math.max(lastEventTime, event.getCreatedOnMs());
+        recentEvents.put(event, event.getCreatedOnMs());
+        Iterator<Long> times = recentEvents.values().iterator();
+        while (times.hasNext()) {
+            if (times.next() < lastEventTime - DUPLICATE_WINDOW_MS) {
+                times.remove();
+            }
+        }
+        return true;
+    }
+
+    private void dispatch(final ChangeEvent event) {
+        final List<Consumer<ChangeEvent>> currentListeners;
+        synchronized (this) {
+            currentListeners = Lists.newArrayList(listeners);
+        }
+        ApplicationManager.getApplication().invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                for (Consumer<ChangeEvent> listener : currentListeners) {
+                    listener.consume(event);
+                }
+            }
+        });
+    }
+
+    private static void closeQuietly(Reader reader) {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import com.google.gerrit.extensions.common.ChangeInfo;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Changes which have been updated since the last refresh of the changes list (see {@link GerritUtil#getChangesDelta}).
+ *
+ * @author Urs Wolfer
+ */
+public final class ChangesDelta {
+    private final List<ChangeInfo> updatedChanges;
+    private final Set<String> removedChangeIds;
+    private final boolean complete;
+
+    /**
+     * @param updatedMatchingChanges recently updated changes which match the query of the list
+     * @param updatedChangesInScope  recently updated changes of the same Gerrit projects, regardless of the query;
+     *                               changes which are not part of {@code updatedMatchingChanges} do not match the query
+     *                               anymore (e.g. they have been merged)
+     */
+    public ChangesDelta(List<ChangeInfo> updatedMatchingChanges, List<ChangeInfo> updatedChangesInScope) {
+        this.updatedChanges = ImmutableList.copyOf(updatedMatchingChanges);
+        Set<String> matchingIds = Sets.newHashSet();
+        for (ChangeInfo change : updatedMatchingChanges) {
+            matchingIds.add(change.id);
+        }
+        Set<String> removedIds = Sets.newHashSet();
+        for (ChangeInfo change : updatedChangesInScope) {
+            if (!matchingIds.contains(change.id)) {
+                removedIds.add(change.id);
+            }
+        }
+        this.removedChangeIds = Collections.unmodifiableSet(removedIds);
+        this.complete = !hasMoreChanges(updatedMatchingChanges) && !hasMoreChanges(updatedChangesInScope);
+    }
+
+    /**
+     * @return updated and new changes, most recently updated first
+     */
+    public List<ChangeInfo> getUpdatedChanges() {
+        return updatedChanges;
+    }
+
+    public Set<String> getRemovedChangeIds() {
+        return removedChangeIds;
+    }
+
+    /**
+     * @return false if there were more updated changes than a single request returns; the list needs to be reloaded
+     * completely then
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    private static boolean hasMoreChanges(List<ChangeInfo> changes) {
+        if (changes.isEmpty()) {
+            return false;
+        }
+        Boolean moreChanges = Iterables.getLast(changes)._moreChanges;
+        return moreChanges != null && moreChanges;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.gerrit.extensions.api.changes.Changes;
+import com.google.gerrit.extensions.client.ListChangesOption;
+import com.google.gerrit.extensions.common.ChangeInfo;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rows of the changes list are loaded with lean options ({@link #CHANGES_LIST_OPTIONS}); the data which is expensive
+ * to compute and transfer ({@link #ENRICHED_CHANGE_OPTIONS}) is loaded on demand for visible and selected rows only
+ * and copied into the rows.
+ *
+ * @author Urs Wolfer
+ */
+public final class ChangesListOptions {
+
+    /**
+     * Options for the rows of the changes list: only what the list columns render.
+     */
+    static final Set<ListChangesOption> CHANGES_LIST_OPTIONS = Collections.unmodifiableSet(EnumSet.of(
+        ListChangesOption.CURRENT_REVISION,
+        ListChangesOption.DETAILED_ACCOUNTS,
+        ListChangesOption.LABELS
+    ));
+    /**
+     * Options for data which is loaded on demand for visible and selected rows of the changes list (revisions for the
+     * patch set column, actions and permitted labels for the toolbar actions), see {@link GerritUtil#getEnrichedChanges}.
+     */
+    static final Set<ListChangesOption> ENRICHED_CHANGE_OPTIONS = Collections.unmodifiableSet(EnumSet.of(
+        ListChangesOption.ALL_REVISIONS,
+        ListChangesOption.DETAILED_ACCOUNTS,
+        ListChangesOption.CHANGE_ACTIONS,
+        ListChangesOption.CURRENT_ACTIONS,
+        ListChangesOption.DETAILED_LABELS,
+        ListChangesOption.LABELS
+    ));
+
+    private ChangesListOptions() {
+    }
+
+    /**
+     * @return a request which loads the provided changes (by number) with {@link #ENRICHED_CHANGE_OPTIONS}
+     */
+    static Changes.QueryRequest createEnrichedChangesQuery(Changes changes, Collection<Integer> changeNumbers) {
+        List<String> queryParts = Lists.newArrayList();
+        for (Integer changeNumber : changeNumbers) {
+            queryParts.add("change:" + changeNumber);
+        }
+        return changes.query(Joiner.on("+OR+").join(queryParts))
+            .withOptions(EnumSet.copyOf(ENRICHED_CHANGE_OPTIONS))
+            .withLimit(changeNumbers.size());
+    }
+
+    /**
+     * Copies the on demand data into a row of the changes list (rows are not replaced to keep selection and editors
+     * intact).
+     */
+    public static void copyEnrichedData(ChangeInfo enrichedChangeInfo, ChangeInfo row) {
+        row.revisions = enrichedChangeInfo.revisions;
+        if (enrichedChangeInfo.currentRevision != null) {
+            row.currentRevision = enrichedChangeInfo.currentRevision;
+        }
+        row.actions = enrichedChangeInfo.actions;
+        row.labels = enrichedChangeInfo.labels;
+        row.permittedLabels = enrichedChangeInfo.permittedLabels;
+    }
+}
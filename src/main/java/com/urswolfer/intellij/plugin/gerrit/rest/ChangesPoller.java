@@ -0,0 +1,331 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.intellij.ide.IdeEventQueue;
+import com.intellij.openapi.application.ApplicationActivationListener;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.IdeFrame;
+import com.intellij.util.Consumer;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls change queries in the background for all open projects: every distinct query is run once per interval
+ * ({@link GerritSettings#getRefreshTimeout()}) and its result is passed to all projects which subscribed to it.
+ *
+ * After the first (complete) result, only the changes updated since the last poll are loaded and merged into the
+ * known result; a complete result is loaded again from time to time to drop changes which do not match anymore.
+ * The interval gets a random jitter (so that many IDEs do not poll the server at the same moment) and is extended
+ * while the IDE is idle or not focused; once it gets focused again, an overdue poll is run immediately.
+ *
+ * While change events are received from the server (see {@link ChangeEventStream}), a poll is run shortly after
+ * events and the regular polling only remains as fallback (with the maximum interval).
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class ChangesPoller {
+    private static final double JITTER = 0.1;
+    private static final int MAX_BACKOFF_FACTOR = 8;
+    private static final long IDLE_TIMEOUT_MS = 10 * 60 * 1000;
+    private static final long COMPLETE_RELOAD_INTERVAL_MS = 60 * 60 * 1000;
+    /**
+     * A poll whose result did not arrive within this time (e.g. because it failed) does not block the next one.
+     */
+    private static final long POLL_TIMEOUT_MS = 5 * 60 * 1000;
+    /**
+     * Events often come in bursts (e.g. a review with votes and comments); they are handled by a single poll.
+     */
+    private static final long EVENT_POLL_DELAY_MS = 2000;
+
+    @Inject
+    private GerritUtil gerritUtil;
+    @Inject
+    private GerritSettings gerritSettings;
+    @Inject
+    private ChangeEventStream changeEventStream;
+
+    private final Random random = new Random();
+
+    // guarded by this
+    private final Map<String, PolledQuery> queries = Maps.newLinkedHashMap();
+    private ScheduledFuture<?> scheduledPoll;
+    private ScheduledFuture<?> eventPoll;
+    private int backoffFactor = 1;
+    private long lastPollTime;
+    private boolean listenersRegistered;
+
+    /**
+     * Passes the changes matching the query to the consumer (on the EDT) after every poll, starting with the current
+     * result if it is known already. Subscribing again for the same project replaces the consumer.
+     */
+    public void subscribe(String query, Project project, Consumer<List<ChangeInfo>> consumer) {
+        final List<ChangeInfo> knownChanges;
+        boolean pollRequired;
+        synchronized (this) {
+            registerListeners();
+            PolledQuery polledQuery = queries.get(query);
+            if (polledQuery == null) {
+                polledQuery = new PolledQuery();
+                queries.put(query, polledQuery);
+            }
+            polledQuery.subscribers.put(project, consumer);
+            knownChanges = polledQuery.changes != null ? polledQuery.getSortedChanges() : null;
+            pollRequired = polledQuery.changes == null && !polledQuery.isPolling();
+            if (scheduledPoll == null) {
+                scheduleNextPoll();
+            }
+        }
+        if (pollRequired) {
+            poll(query);
+        } else if (knownChanges != null) {
+            deliver(consumer, knownChanges);
+        }
+    }
+
+    public void unsubscribe(String query, Project project) {
+        synchronized (this) {
+            PolledQuery polledQuery = queries.get(query);
+            if (polledQuery == null) {
+                return;
+            }
+            polledQuery.subscribers.remove(project);
+            if (polledQuery.subscribers.isEmpty()) {
+                queries.remove(query);
+            }
+            if (queries.isEmpty()) {
+                cancelScheduledPoll();
+            }
+        }
+    }
+
+    /**
+     * Polls all queries now (e.g. on a manual refresh).
+     */
+    public void poll() {
+        List<String> queriesToPoll;
+        synchronized (this) {
+            queriesToPoll = Lists.newArrayList(queries.keySet());
+            scheduleNextPoll();
+        }
+        for (String query : queriesToPoll) {
+            poll(query);
+        }
+    }
+
+    /**
+     * Drops all known results and schedules the next poll; to be called when the settings have changed.
+     */
+    public synchronized void reset() {
+        for (PolledQuery polledQuery : queries.values()) {
+            polledQuery.changes = null;
+        }
+        backoffFactor = 1;
+        scheduleNextPoll();
+    }
+
+    private void poll(final String query) {
+        Project project;
+        final boolean completeReload;
+        Timestamp updatedSince;
+        synchronized (this) {
+            PolledQuery polledQuery = queries.get(query);
+            if (polledQuery == null || polledQuery.isPolling()) {
+                return;
+            }
+            lastPollTime = System.currentTimeMillis();
+            project = polledQuery.subscribers.keySet().iterator().next(); // only used to report errors
+            completeReload = polledQuery.changes == null
+                || System.currentTimeMillis() - polledQuery.lastCompleteReloadTime > COMPLETE_RELOAD_INTERVAL_MS;
+            updatedSince = completeReload ? null : polledQuery.getLatestUpdate();
+            polledQuery.pollStartTime = System.currentTimeMillis();
+        }
+        gerritUtil.pollChanges(query, updatedSince, project, new Consumer<List<ChangeInfo>>() {
+            @Override
+            public void consume(List<ChangeInfo> changes) {
+                polled(query, changes, completeReload);
+            }
+        });
+    }
+
+    private void polled(String query, List<ChangeInfo> changes, boolean completeReload) {
+        List<ChangeInfo> result;
+        List<Consumer<List<ChangeInfo>>> consumers;
+        synchronized (this) {
+            PolledQuery polledQuery = queries.get(query);
+            if (polledQuery == null) {
+                return;
+            }
+            polledQuery.pollStartTime = 0;
+            if (completeReload || polledQuery.changes == null) {
+                polledQuery.changes = Maps.newHashMap();
+                polledQuery.lastCompleteReloadTime = System.currentTimeMillis();
+            }
+            for (ChangeInfo change : changes) {
+                polledQuery.changes.put(change.id, change);
+            }
+            result = polledQuery.getSortedChanges();
+            consumers = Lists.newArrayList(polledQuery.subscribers.values());
+        }
+        for (Consumer<List<ChangeInfo>> consumer : consumers) {
+            consumer.consume(result);
+        }
+    }
+
+    private void scheduledPoll() {
+        synchronized (this) {
+            scheduledPoll = null;
+            backoffFactor = isUserActive() ? 1 : Math.min(MAX_BACKOFF_FACTOR, backoffFactor * 2);
+        }
+        poll();
+    }
+
+    private void pollIfOverdue() {
+        synchronized (this) {
+            if (backoffFactor == 1 || System.currentTimeMillis() - lastPollTime < getIntervalMs()) {
+                return;
+            }
+            backoffFactor = 1;
+        }
+        poll();
+    }
+
+    private synchronized void scheduleNextPoll() {
+        cancelScheduledPoll();
+        if (queries.isEmpty() || !gerritSettings.getAutomaticRefresh() || gerritSettings.getRefreshTimeout() <= 0) {
+            return;
+        }
+        long delay = getIntervalMs() * (changeEventStream.isConnected() ? MAX_BACKOFF_FACTOR : backoffFactor);
+        delay += (long) (delay * JITTER * (2 * random.nextDouble() - 1));
+        scheduledPoll = AppExecutorUtil.getAppScheduledExecutorService().schedule(new Runnable() {
+            @Override
+            public void run() {
+                scheduledPoll();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void cancelScheduledPoll() {
+        if (scheduledPoll != null) {
+            scheduledPoll.cancel(false);
+            scheduledPoll = null;
+        }
+    }
+
+    private long getIntervalMs() {
+        return gerritSettings.getRefreshTimeout() * 60 * 1000L;
+    }
+
+    private static boolean isUserActive() {
+        return ApplicationManager.getApplication().isActive()
+            && IdeEventQueue.getInstance().getIdleTime() < IDLE_TIMEOUT_MS;
+    }
+
+    private synchronized void pollAfterEvent() {
+        if (queries.isEmpty() || eventPoll != null && !eventPoll.isDone()) {
+            return;
+        }
+        eventPoll = AppExecutorUtil.getAppScheduledExecutorService().schedule(new Runnable() {
+            @Override
+            public void run() {
+                poll();
+            }
+        }, EVENT_POLL_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void registerListeners() {
+        if (listenersRegistered) {
+            return;
+        }
+        listenersRegistered = true;
+        ApplicationManager.getApplication().getMessageBus().connect()
+            .subscribe(ApplicationActivationListener.TOPIC, new ApplicationActivationListener() {
+                @Override
+                public void applicationActivated(@NotNull IdeFrame ideFrame) {
+                    pollIfOverdue();
+                }
+            });
+        changeEventStream.addListener(new Consumer<ChangeEvent>() {
+            @Override
+            public void consume(ChangeEvent event) {
+                pollAfterEvent();
+            }
+        }, ApplicationManager.getApplication());
+    }
+
+    private static void deliver(final Consumer<List<ChangeInfo>> consumer, final List<ChangeInfo> changes) {
+        ApplicationManager.getApplication().invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                consumer.consume(changes);
+            }
+        });
+    }
+
+    private static final class PolledQuery {
+        private final Map<Project, Consumer<List<ChangeInfo>>> subscribers = Maps.newLinkedHashMap();
+        private Map<String, ChangeInfo> changes;
+        private long lastCompleteReloadTime;
+        private long pollStartTime;
+
+        private boolean isPolling() {
+            return pollStartTime != 0 && System.currentTimeMillis() - pollStartTime < POLL_TIMEOUT_MS;
+        }
+
+        private Timestamp getLatestUpdate() {
+            Timestamp latestUpdate = null;
+            for (ChangeInfo change : changes.values()) {
+                if (change.updated != null && (latestUpdate == null || change.updated.after(latestUpdate))) {
+                    latestUpdate = change.updated;
+                }
+            }
+            return latestUpdate;
+        }
+
+        private List<ChangeInfo> getSortedChanges() {
+            List<ChangeInfo> sortedChanges = Lists.newArrayList(changes.values());
+            Collections.sort(sortedChanges, new Comparator<ChangeInfo>() {
+                @Override
+                public int compare(ChangeInfo change1, ChangeInfo change2) {
+                    if (change1.updated == null || change2.updated == null) {
+                        return change2._number - change1._number;
+                    }
+                    return change2.updated.compareTo(change1.updated);
+                }
+            });
+            return ImmutableList.copyOf(sortedChanges);
+        }
+    }
+}
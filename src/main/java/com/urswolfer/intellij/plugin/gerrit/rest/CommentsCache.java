@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gerrit.extensions.common.CommentInfo;
+import com.google.inject.Singleton;
+
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches published comments and drafts per change revision, indexed by file path. All diff viewers of a change share
+ * one entry, so the comments of a revision are loaded only once while stepping through its files.
+ *
+ * Published comments are valid as long as the change has not been updated since they were loaded (new comments
+ * update the change). Own drafts are patched on save and delete.
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class CommentsCache {
+
+    private static final int MAX_ENTRIES = 50;
+
+    private final Map<Key, RevisionComments> entries = new LinkedHashMap<Key, RevisionComments>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, RevisionComments> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * @param changeUpdated the last known update timestamp of the change
+     * @return the cached comments or null if they are not cached or outdated
+     */
+    public synchronized RevisionComments get(String host, int changeNr, String revision, Timestamp changeUpdated) {
+        RevisionComments comments = entries.get(new Key(host, changeNr, revision));
+        if (comments == null || changeUpdated == null || comments.changeUpdated == null
+            || comments.changeUpdated.before(changeUpdated)) {
+            return null;
+        }
+        return comments;
+    }
+
+    public synchronized void put(String host, int changeNr, String revision, RevisionComments comments) {
+        entries.put(new Key(host, changeNr, revision), comments);
+    }
+
+    /**
+     * Adds or replaces (same id) the provided draft in the cached entry (if any).
+     */
+    public synchronized void putDraft(String host, int changeNr, String revision, CommentInfo draft) {
+        RevisionComments comments = entries.get(new Key(host, changeNr, revision));
+        if (comments == null) {
+            return;
+        }
+        if (draft.path == null) {
+            // cannot patch the entry without knowing the file
+            entries.remove(new Key(host, changeNr, revision));
+            return;
+        }
+        synchronized (comments) {
+            removeDraft(comments, draft.id);
+            List<CommentInfo> fileDrafts = comments.drafts.get(draft.path);
+            if (fileDrafts == null) {
+                fileDrafts = Lists.newArrayList();
+                comments.drafts.put(draft.path, fileDrafts);
+            }
+            fileDrafts.add(draft);
+        }
+    }
+
+    public synchronized void removeDraft(String host, int changeNr, String revision, String draftId) {
+        RevisionComments comments = entries.get(new Key(host, changeNr, revision));
+        if (comments != null) {
+            removeDraft(comments, draftId);
+        }
+    }
+
+    /**
+     * Removes all entries of the change with the provided id (e.g. after a review has published its drafts).
+     */
+    public synchronized void invalidate(String changeId) {
+        Iterator<RevisionComments> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (changeId.equals(iterator.next().changeId)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static void removeDraft(RevisionComments comments, String draftId) {
+        synchronized (comments) {
+            for (List<CommentInfo> fileDrafts : comments.drafts.values()) {
+                Iterator<CommentInfo> iterator = fileDrafts.iterator();
+                while (iterator.hasNext()) {
+                    if (Objects.equal(draftId, iterator.next().id)) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    public static final class RevisionComments {
+        private final String changeId;
+        private final Timestamp changeUpdated;
+        private final Map<String, List<CommentInfo>> published;
+        private final Map<String, List<CommentInfo>> drafts;
+
+        public RevisionComments(String changeId,
+                                Timestamp changeUpdated,
+                                Map<String, List<CommentInfo>> published,
+                                Map<String, List<CommentInfo>> drafts) {
+            this.changeId = changeId;
+            this.changeUpdated = changeUpdated;
+            this.published = copy(published);
+            this.drafts = copy(drafts);
+        }
+
+        /**
+         * @return a new map (with new lists) containing the requested comments by file path
+         */
+        public Map<String, List<CommentInfo>> toMap(boolean includePublishedComments, boolean includeDraftComments) {
+            Map<String, List<CommentInfo>> allComments = Maps.newHashMap();
+            synchronized (this) {
+                if (includeDraftComments) {
+                    addAll(allComments, drafts);
+                }
+                if (includePublishedComments) {
+                    addAll(allComments, published);
+                }
+            }
+            return allComments;
+        }
+
+        private static void addAll(Map<String, List<CommentInfo>> target, Map<String, List<CommentInfo>> source) {
+            for (Map.Entry<String, List<CommentInfo>> entry : source.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    continue;
+                }
+                List<CommentInfo> commentInfos = target.get(entry.getKey());
+                if (commentInfos == null) {
+                    commentInfos = Lists.newArrayList();
+                    target.put(entry.getKey(), commentInfos);
+                }
+                commentInfos.addAll(entry.getValue());
+            }
+        }
+
+        private static Map<String, List<CommentInfo>> copy(Map<String, List<CommentInfo>> comments) {
+            Map<String, List<CommentInfo>> result = Maps.newHashMap();
+            for (Map.Entry<String, List<CommentInfo>> entry : comments.entrySet()) {
+                result.put(entry.getKey(), Lists.newArrayList(entry.getValue()));
+            }
+            return result;
+        }
+    }
+
+    private static final class Key {
+        private final String host;
+        private final int changeNr;
+        private final String revision;
+
+        private Key(String host, int changeNr, String revision) {
+            this.host = host;
+            this.changeNr = changeNr;
+            this.revision = revision;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return changeNr == key.changeNr
+                && Objects.equal(host, key.host)
+                && Objects.equal(revision, key.revision);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(host, changeNr, revision);
+        }
+    }
+}
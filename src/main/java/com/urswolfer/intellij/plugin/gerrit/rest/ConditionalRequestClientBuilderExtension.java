@@ -0,0 +1,218 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.inject.Singleton;
+import com.urswolfer.gerrit.client.rest.GerritAuthData;
+import com.urswolfer.gerrit.client.rest.http.HttpClientBuilderExtension;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Revalidates responses of change and account endpoints (e.g. {@code /changes/{id}/detail},
+ * {@code /changes/{id}/revisions/{revision}/comments}) with their ETag: the request gets an {@code If-None-Match}
+ * header and a "304 Not Modified" response is replaced with the stored body, so unchanged data is not transferred
+ * again.
+ *
+ * Entries are bound to host and login; the cache size is limited by the size of the stored bodies (LRU).
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class ConditionalRequestClientBuilderExtension extends HttpClientBuilderExtension {
+
+    private static final long DEFAULT_MAX_CACHE_BYTES = 8 * 1024 * 1024;
+    /**
+     * Larger bodies are not stored; they would evict a lot of other entries.
+     */
+    private static final int MAX_ENTRY_BYTES = 1024 * 1024;
+    /**
+     * Single resources only; queries ({@code /changes/?q=...}) do not provide an ETag.
+     */
+    private static final Pattern CACHEABLE_URI = Pattern.compile("/(changes|accounts)/[^?]");
+    private static final String CACHE_KEY_ATTRIBUTE = ConditionalRequestClientBuilderExtension.class.getName() + ".key";
+    private static final String CACHE_ENTRY_ATTRIBUTE = ConditionalRequestClientBuilderExtension.class.getName() + ".entry";
+
+    private final long maxCacheBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long usedBytes = 0;
+
+    private final AtomicLong notModifiedResponses = new AtomicLong();
+    private final AtomicLong fullResponses = new AtomicLong();
+
+    public ConditionalRequestClientBuilderExtension() {
+        this(DEFAULT_MAX_CACHE_BYTES);
+    }
+
+    public ConditionalRequestClientBuilderExtension(long maxCacheBytes) {
+        this.maxCacheBytes = maxCacheBytes;
+    }
+
+    @Override
+    public HttpClientBuilder extend(HttpClientBuilder httpClientBuilder, GerritAuthData authData) {
+        HttpClientBuilder builder = super.extend(httpClientBuilder, authData);
+        final String keyPrefix = authData.getLogin() + '@' + authData.getHost() + ' ';
+        builder.addInterceptorLast(new HttpRequestInterceptor() {
+            @Override
+            public void process(HttpRequest request, HttpContext context) {
+                prepareRequest(keyPrefix, request, context);
+            }
+        });
+        // runs after the content has been decoded
+        builder.addInterceptorLast(new HttpResponseInterceptor() {
+            @Override
+            public void process(HttpResponse response, HttpContext context) throws IOException {
+                processResponse(response, context);
+            }
+        });
+        return builder;
+    }
+
+    void prepareRequest(String keyPrefix, HttpRequest request, HttpContext context) {
+        if (!"GET".equals(request.getRequestLine().getMethod())) {
+            return;
+        }
+        String uri = request.getRequestLine().getUri();
+        if (!CACHEABLE_URI.matcher(uri).find()) {
+            return;
+        }
+        String key = keyPrefix + uri;
+        context.setAttribute(CACHE_KEY_ATTRIBUTE, key);
+        Entry entry = getEntry(key);
+        if (entry != null) {
+            // the entry might get evicted before the response arrives; keep it for this request
+            context.setAttribute(CACHE_ENTRY_ATTRIBUTE, entry);
+            request.setHeader(HttpHeaders.IF_NONE_MATCH, entry.etag);
+        }
+    }
+
+    void processResponse(HttpResponse response, HttpContext context) throws IOException {
+        String key = (String) context.getAttribute(CACHE_KEY_ATTRIBUTE);
+        if (key == null) {
+            return;
+        }
+        int statusCode = response.getStatusLine().getStatusCode();
+        Entry entry = (Entry) context.getAttribute(CACHE_ENTRY_ATTRIBUTE);
+        if (statusCode == HttpStatus.SC_NOT_MODIFIED && entry != null) {
+            notModifiedResponses.incrementAndGet();
+            response.setStatusLine(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+            response.setEntity(new ByteArrayEntity(entry.body, entry.contentType));
+            return;
+        }
+        if (statusCode != HttpStatus.SC_OK) {
+            return;
+        }
+        fullResponses.incrementAndGet();
+        Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+        HttpEntity entity = response.getEntity();
+        if (etag == null || entity == null || entity.getContentLength() > MAX_ENTRY_BYTES) {
+            removeEntry(key);
+            return;
+        }
+        byte[] body = EntityUtils.toByteArray(entity);
+        ContentType contentType = ContentType.get(entity);
+        response.setEntity(new ByteArrayEntity(body, contentType));
+        if (body.length <= MAX_ENTRY_BYTES) {
+            putEntry(key, new Entry(etag.getValue(), body, contentType));
+        } else {
+            removeEntry(key);
+        }
+    }
+
+    /**
+     * @return number of responses which have been served from the cache after the server confirmed they are still
+     * valid
+     */
+    public long getNotModifiedCount() {
+        return notModifiedResponses.get();
+    }
+
+    /**
+     * @return number of responses of cacheable endpoints which have been transferred completely
+     */
+    public long getFullResponseCount() {
+        return fullResponses.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getCachedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    private synchronized Entry getEntry(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized void putEntry(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            usedBytes -= previous.body.length;
+        }
+        usedBytes += entry.body.length;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (usedBytes > maxCacheBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            usedBytes -= eldest.body.length;
+            iterator.remove();
+        }
+    }
+
+    private synchronized void removeEntry(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            usedBytes -= entry.body.length;
+        }
+    }
+
+    private static final class Entry {
+        private final String etag;
+        private final byte[] body;
+        private final ContentType contentType;
+
+        private Entry(String etag, byte[] body, ContentType contentType) {
+            this.etag = etag;
+            this.body = body;
+            this.contentType = contentType;
+        }
+    }
+}
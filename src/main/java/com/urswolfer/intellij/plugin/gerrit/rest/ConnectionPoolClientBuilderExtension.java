@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.base.Objects;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.net.ssl.CertificateManager;
+import com.urswolfer.gerrit.client.rest.GerritAuthData;
+import com.urswolfer.gerrit.client.rest.http.HttpClientBuilderExtension;
+import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * gerrit-rest-java-client builds a new HttpClient for every request. Without this extension every one of them gets
+ * its own connection manager, i.e. a new TCP connection and a full TLS handshake per request.
+ *
+ * This extension shares one bounded, keep-alive connection pool between all of these clients. The pool is bound to
+ * the current host / login / pool settings and is only rebuilt when one of them changes. As all connections are
+ * created from the same (IDE wide) SSL context, TLS sessions get resumed when a new connection is required.
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class ConnectionPoolClientBuilderExtension extends HttpClientBuilderExtension {
+
+    private static final int VALIDATE_AFTER_INACTIVITY_MS = 2000;
+
+    @Inject
+    private GerritSettings gerritSettings;
+    @Inject
+    private Logger log;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+    private PoolKey poolKey;
+
+    @Override
+    public HttpClientBuilder extend(HttpClientBuilder httpClientBuilder, GerritAuthData authData) {
+        HttpClientBuilder builder = super.extend(httpClientBuilder, authData);
+        PoolingHttpClientConnectionManager manager = getConnectionManager(authData);
+        builder.setConnectionManager(manager);
+        // the client instance is thrown away after the request; it must not shut down the pool when it gets closed
+        builder.setConnectionManagerShared(true);
+        builder.setKeepAliveStrategy(new BoundedKeepAliveStrategy(getKeepAliveMillis()));
+        return builder;
+    }
+
+    /**
+     * @return statistics (leased, available, pending and max connections) of the current pool or null if no request
+     * has been executed yet
+     */
+    public synchronized PoolStats getPoolStats() {
+        if (connectionManager == null) {
+            return null;
+        }
+        return connectionManager.getTotalStats();
+    }
+
+    private synchronized PoolingHttpClientConnectionManager getConnectionManager(GerritAuthData authData) {
+        PoolKey key = new PoolKey(authData.getHost(), authData.getLogin(),
+            gerritSettings.getConnectionPoolSize(), gerritSettings.getConnectionKeepAliveTimeout());
+        if (connectionManager == null || !key.equals(poolKey)) {
+            if (connectionManager != null) {
+                log.debug("Gerrit connection settings changed; rebuilding HTTP connection pool.");
+                connectionManager.shutdown();
+            }
+            connectionManager = createConnectionManager(key.poolSize);
+            poolKey = key;
+        } else {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(getKeepAliveMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Gerrit HTTP connection pool: " + connectionManager.getTotalStats());
+        }
+        return connectionManager;
+    }
+
+    private PoolingHttpClientConnectionManager createConnectionManager(int poolSize) {
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", new SSLConnectionSocketFactory(CertificateManager.getInstance().getSslContext()))
+            .build();
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        int maxConnections = Math.max(1, poolSize);
+        manager.setMaxTotal(maxConnections);
+        // all requests go to the same Gerrit host
+        manager.setDefaultMaxPerRoute(maxConnections);
+        manager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+        return manager;
+    }
+
+    private long getKeepAliveMillis() {
+        return TimeUnit.SECONDS.toMillis(Math.max(1, gerritSettings.getConnectionKeepAliveTimeout()));
+    }
+
+    /**
+     * Honors the keep-alive timeout sent by the server, but never keeps connections longer than configured.
+     */
+    private static final class BoundedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+        private final long maxKeepAliveMillis;
+
+        private BoundedKeepAliveStrategy(long maxKeepAliveMillis) {
+            this.maxKeepAliveMillis = maxKeepAliveMillis;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            if (keepAlive <= 0) {
+                return maxKeepAliveMillis;
+            }
+            return Math.min(keepAlive, maxKeepAliveMillis);
+        }
+    }
+
+    private static final class PoolKey {
+        private final String host;
+        private final String login;
+        private final int poolSize;
+        private final int keepAliveTimeout;
+
+        private PoolKey(String host, String login, int poolSize, int keepAliveTimeout) {
+            this.host = host;
+            this.login = login;
+            this.poolSize = poolSize;
+            this.keepAliveTimeout = keepAliveTimeout;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PoolKey that = (PoolKey) o;
+            return poolSize == that.poolSize
+                && keepAliveTimeout == that.keepAliveTimeout
+                && Objects.equal(host, that.host)
+                && Objects.equal(login, that.login);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(host, login, poolSize, keepAliveTimeout);
+        }
+    }
+}
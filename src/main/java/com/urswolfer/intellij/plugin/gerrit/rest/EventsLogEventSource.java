@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.urswolfer.gerrit.client.rest.GerritRestApi;
+import com.urswolfer.gerrit.client.rest.RestClient;
+import com.urswolfer.gerrit.client.rest.http.HttpStatusException;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+
+import java.io.Closeable;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Reads the events of the Gerrit events-log plugin ({@code /plugins/events-log/events/}), which stores the events of
+ * {@code gerrit stream-events} and provides them over HTTP. Only the events since the last processed one are
+ * requested, so an empty response is cheap.
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class EventsLogEventSource implements ChangeEventSource {
+
+    private static final long REOPEN_DELAY_MS = 15 * 1000;
+    /**
+     * Events of the last seconds are requested again (events-log filters by seconds; duplicates are dropped).
+     */
+    private static final long OVERLAP_MS = 2 * 1000;
+
+    @Inject
+    private Provider<GerritRestApi> gerritClient;
+
+    @Override
+    public Reader open(long sinceMs) throws IOException {
+        StringBuilder path = new StringBuilder("/plugins/events-log/events/");
+        if (sinceMs > 0) {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            path.append("?t1=").append(format.format(new Date(sinceMs - OVERLAP_MS)));
+        }
+        final HttpResponse response;
+        try {
+            response = gerritClient.get().restClient().request(path.toString(), null, RestClient.HttpVerb.GET);
+        } catch (HttpStatusException e) {
+            if (e.getStatusCode() == 404) {
+                throw new UnavailableException("events-log plugin is not installed on the Gerrit server");
+            }
+            throw new IOException("Failed to read Gerrit events. Status-Code: " + e.getStatusCode(), e);
+        }
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            close(response);
+            return new StringReader("");
+        }
+        return new FilterReader(new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8)) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    EventsLogEventSource.close(response);
+                }
+            }
+        };
+    }
+
+    private static void close(HttpResponse response) throws IOException {
+        if (response instanceof Closeable) {
+            ((Closeable) response).close();
+        }
+    }
+
+    @Override
+    public long getReopenDelayMs() {
+        return REOPEN_DELAY_MS;
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.urswolfer.intellij.plugin.gerrit.rest;
 
+import com.google.common.base.Objects;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.urswolfer.gerrit.client.rest.GerritRestApi;
@@ -23,6 +24,9 @@ import com.urswolfer.gerrit.client.rest.GerritRestApiFactory;
 import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
 
 /**
+ * Provides one client per Gerrit host / login. All injection sites share this client (and its connection pool, see
+ * {@link ConnectionPoolClientBuilderExtension}); a new one is only created when these settings change.
+ *
  * @author Urs Wolfer
  */
 public class GerritApiProvider implements Provider<GerritRestApi> {
@@ -38,15 +42,35 @@ public class GerritApiProvider implements Provider<GerritRestApi> {
     @Inject
     private UserAgentClientBuilderExtension userAgentClientBuilderExtension;
     @Inject
+    private ConnectionPoolClientBuilderExtension connectionPoolClientBuilderExtension;
+    @Inject
+    private ConditionalRequestClientBuilderExtension conditionalRequestClientBuilderExtension;
+    @Inject
+    private InstrumentationClientBuilderExtension instrumentationClientBuilderExtension;
+    @Inject
     private GerritRestApiFactory gerritRestApiFactory;
 
+    private GerritRestApi gerritRestApi;
+    private String host;
+    private String login;
+
     @Override
-    public GerritRestApi get() {
-        return gerritRestApiFactory.create(
-            gerritSettings,
-            certificateManagerClientBuilderExtension,
-            loggerHttpClientBuilderExtension,
-            proxyHttpClientBuilderExtension,
-            userAgentClientBuilderExtension);
+    public synchronized GerritRestApi get() {
+        if (gerritRestApi == null
+            || !Objects.equal(host, gerritSettings.getHost())
+            || !Objects.equal(login, gerritSettings.getLogin())) {
+            host = gerritSettings.getHost();
+            login = gerritSettings.getLogin();
+            gerritRestApi = gerritRestApiFactory.create(
+                gerritSettings,
+                certificateManagerClientBuilderExtension,
+                connectionPoolClientBuilderExtension,
+                conditionalRequestClientBuilderExtension,
+                instrumentationClientBuilderExtension,
+                loggerHttpClientBuilderExtension,
+                proxyHttpClientBuilderExtension,
+                userAgentClientBuilderExtension);
+        }
+        return gerritRestApi;
     }
 }
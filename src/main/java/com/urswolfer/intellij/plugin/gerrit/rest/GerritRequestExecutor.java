@@ -0,0 +1,304 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executes all Gerrit REST requests on a small, bounded pool of worker threads.
+ *
+ * Requests are ordered by {@link Priority} (and FIFO within the same priority), so loading the details of the
+ * selected change is not delayed by background polling. All requests of a project which are not
+ * {@link Priority#LOW} share one progress indicator; cancelling it cancels these requests (background requests are
+ * neither shown nor cancelled by it).
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class GerritRequestExecutor {
+
+    public enum Priority {
+        /**
+         * Requests triggered directly by the user (e.g. selecting a change, posting a review).
+         */
+        HIGH,
+        NORMAL,
+        /**
+         * Requests not visible to the user (e.g. notification polling).
+         */
+        LOW
+    }
+
+    private static final int MAX_PARALLEL_REQUESTS = 4;
+    private static final long PROGRESS_UPDATE_INTERVAL_MS = 100;
+
+    @Inject
+    private Application application;
+    @Inject
+    private Logger log;
+    @Inject
+    private RequestStatistics requestStatistics;
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Project, Set<RequestTask<?>>> activeRequests = Maps.newHashMap();
+
+    public GerritRequestExecutor() {
+        executor = new ThreadPoolExecutor(
+            MAX_PARALLEL_REQUESTS, MAX_PARALLEL_REQUESTS,
+            60, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<Runnable>(),
+            new ThreadFactoryBuilder().setNameFormat("Gerrit Request Executor %d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Executes {@code callable} in background and passes its result to {@code consumer} on the EDT.
+     * The consumer is not called when the request was cancelled, failed or the project was disposed in between.
+     *
+     * @return a future which can be used to cancel the request
+     */
+    public <T> Future<T> submit(Project project,
+                                Priority priority,
+                                Callable<T> callable,
+                                Consumer<T> consumer) {
+        return submit(project, priority, callable, consumer, null);
+    }
+
+    /**
+     * Like {@link #submit(Project, Priority, Callable, Consumer)}, but calls {@code abortCallback} on the EDT instead of
+     * the consumer when the request was cancelled (e.g. with the progress indicator) or failed, so that callers can
+     * reset their loading state. Neither is called when the project was disposed.
+     */
+    public <T> Future<T> submit(Project project,
+                                Priority priority,
+                                Callable<T> callable,
+                                Consumer<T> consumer,
+                                @Nullable Runnable abortCallback) {
+        RequestTask<T> task = new RequestTask<T>(project, priority, callable, consumer, abortCallback);
+        if (priority == Priority.LOW) {
+            executor.execute(task);
+            return task;
+        }
+        boolean startProgress;
+        synchronized (activeRequests) {
+            Set<RequestTask<?>> projectRequests = activeRequests.get(project);
+            startProgress = projectRequests == null;
+            if (startProgress) {
+                projectRequests = Sets.newLinkedHashSet();
+                activeRequests.put(project, projectRequests);
+            }
+            projectRequests.add(task);
+        }
+        if (startProgress) {
+            startProgressIndicator(project);
+        }
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Cancels all pending and running requests of the provided project which are shown in the progress indicator
+     * (i.e. all but {@link Priority#LOW} requests).
+     */
+    public void cancelAll(Project project) {
+        Set<RequestTask<?>> projectRequests;
+        synchronized (activeRequests) {
+            Set<RequestTask<?>> requests = activeRequests.get(project);
+            if (requests == null) {
+                return;
+            }
+            projectRequests = Sets.newHashSet(requests);
+        }
+        for (RequestTask<?> request : projectRequests) {
+            request.cancel(true);
+        }
+    }
+
+    private void requestFinished(RequestTask<?> task) {
+        synchronized (activeRequests) {
+            Set<RequestTask<?>> projectRequests = activeRequests.get(task.project);
+            if (projectRequests != null) {
+                projectRequests.remove(task);
+            }
+            activeRequests.notifyAll();
+        }
+    }
+
+    private int getActiveRequestCount(Project project) {
+        synchronized (activeRequests) {
+            Set<RequestTask<?>> projectRequests = activeRequests.get(project);
+            return projectRequests != null ? projectRequests.size() : 0;
+        }
+    }
+
+    private void startProgressIndicator(final Project project) {
+        application.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (project.isDisposed()) {
+                    cancelAll(project);
+                    synchronized (activeRequests) {
+                        activeRequests.remove(project);
+                    }
+                    return;
+                }
+                new Task.Backgroundable(project, "Accessing Gerrit", true) {
+                    @Override
+                    public void run(@NotNull ProgressIndicator indicator) {
+                        indicator.setIndeterminate(true);
+                        waitForRequests(project, indicator);
+                    }
+                }.queue();
+            }
+        });
+    }
+
+    private void waitForRequests(Project project, ProgressIndicator indicator) {
+        while (true) {
+            if (indicator.isCanceled() || project.isDisposed()) {
+                cancelAll(project);
+            }
+            synchronized (activeRequests) {
+                int count = getActiveRequestCount(project);
+                if (count == 0) {
+                    // the next submitted request of this project starts a new indicator
+                    activeRequests.remove(project);
+                    return;
+                }
+                indicator.setText2(count == 1 ? "1 request" : count + " requests");
+                try {
+                    activeRequests.wait(PROGRESS_UPDATE_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    activeRequests.remove(project);
+                    return;
+                }
+            }
+        }
+    }
+
+    private final class RequestTask<T> extends FutureTask<T> implements Comparable<RequestTask<?>> {
+        private final Project project;
+        private final Priority priority;
+        private final Consumer<T> consumer;
+        private final Runnable abortCallback;
+        private final long sequenceNumber = sequence.getAndIncrement();
+        private final long submitTimeNanos = System.nanoTime();
+
+        private RequestTask(Project project,
+                            Priority priority,
+                            Callable<T> callable,
+                            Consumer<T> consumer,
+                            @Nullable Runnable abortCallback) {
+            super(callable);
+            this.project = project;
+            this.priority = priority;
+            this.consumer = consumer;
+            this.abortCallback = abortCallback;
+        }
+
+        @Override
+        public void run() {
+            if (project.isDisposed()) {
+                cancel(false);
+            }
+            requestStatistics.recordQueueWait(priority,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submitTimeNanos));
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            requestFinished(this);
+            if (isCancelled()) {
+                aborted();
+                return;
+            }
+            final T result;
+            try {
+                result = get();
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof ProcessCanceledException)) {
+                    log.error(e.getCause());
+                }
+                aborted();
+                return;
+            } catch (InterruptedException | CancellationException e) {
+                aborted();
+                return;
+            }
+            application.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    if (project.isDisposed()) {
+                        return;
+                    }
+                    consumer.consume(result);
+                }
+            });
+        }
+
+        private void aborted() {
+            if (abortCallback == null) {
+                return;
+            }
+            application.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    if (!project.isDisposed()) {
+                        abortCallback.run();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public int compareTo(@NotNull RequestTask<?> other) {
+            int result = priority.compareTo(other.priority);
+            if (result != 0) {
+                return result;
+            }
+            return Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+    }
+}
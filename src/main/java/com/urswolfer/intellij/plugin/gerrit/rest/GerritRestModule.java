@@ -27,9 +27,19 @@ public class GerritRestModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(CertificateManagerClientBuilderExtension.class);
+        bind(ConnectionPoolClientBuilderExtension.class);
+        bind(ConditionalRequestClientBuilderExtension.class);
+        bind(InstrumentationClientBuilderExtension.class);
         bind(ProxyHttpClientBuilderExtension.class);
         bind(UserAgentClientBuilderExtension.class);
         bind(GerritRestApiFactory.class);
+        bind(GerritRequestExecutor.class);
+        bind(SingleFlightRequests.class);
+        bind(ChangeDetailsCache.class);
+        bind(CommentsCache.class);
+        bind(RequestStatistics.class);
+        bind(ServerCapabilitiesProbe.class);
+        bind(ChangesPoller.class);
         bind(GerritRestApi.class).toProvider(new GerritApiProvider());
     }
 }
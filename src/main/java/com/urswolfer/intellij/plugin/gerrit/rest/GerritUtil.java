@@ -46,6 +46,7 @@ import com.intellij.notification.NotificationListener;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.options.ShowSettingsUtil;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
@@ -59,10 +60,10 @@ import com.urswolfer.gerrit.client.rest.GerritRestApiFactory;
 import com.urswolfer.gerrit.client.rest.http.HttpStatusException;
 import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
 import com.urswolfer.intellij.plugin.gerrit.SelectedRevisions;
+import com.urswolfer.intellij.plugin.gerrit.git.GerritProjectIndex;
 import com.urswolfer.intellij.plugin.gerrit.ui.LoginDialog;
 import com.urswolfer.intellij.plugin.gerrit.util.NotificationBuilder;
 import com.urswolfer.intellij.plugin.gerrit.util.NotificationService;
-import com.urswolfer.intellij.plugin.gerrit.util.UrlUtils;
 import git4idea.GitUtil;
 import git4idea.config.GitExecutableManager;
 import git4idea.config.GitVersion;
@@ -70,16 +71,21 @@ import git4idea.i18n.GitBundle;
 import git4idea.repo.GitRemote;
 import git4idea.repo.GitRepository;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.event.HyperlinkEvent;
+import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -90,6 +96,15 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public class GerritUtil {
 
+    /**
+     * Upper bound of changes loaded by a delta refresh; when more changes have been updated, the list gets reloaded.
+     */
+    private static final int MAX_DELTA_CHANGES = 100;
+    /**
+     * Additional time span covered by delta refresh queries (tolerates clock differences between IDE and server).
+     */
+    private static final long DELTA_REFRESH_MARGIN_SECONDS = 5 * 60;
+
     @Inject
     private GerritSettings gerritSettings;
     @Inject
@@ -110,6 +125,20 @@ public class GerritUtil {
     private UserAgentClientBuilderExtension userAgentClientBuilderExtension;
     @Inject
     private SelectedRevisions selectedRevisions;
+    @Inject
+    private GerritRequestExecutor requestExecutor;
+    @Inject
+    private SingleFlightRequests singleFlightRequests;
+    @Inject
+    private ChangeDetailsCache changeDetailsCache;
+    @Inject
+    private CommentsCache commentsCache;
+    @Inject
+    private StreamingChangesQuery streamingChangesQuery;
+    @Inject
+    private ServerCapabilitiesProbe serverCapabilitiesProbe;
+    @Inject
+    private GerritProjectIndex gerritProjectIndex;
 
     public <T> T accessToGerritWithModalProgress(Project project,
                                                  final ThrowableComputable<T, Exception> computable) {
@@ -141,13 +170,16 @@ public class GerritUtil {
             public Void get() {
                 try {
                     gerritClient.changes().id(changeId).revision(revision).review(reviewInput);
+                    changeDetailsCache.invalidate(changeId);
+                    commentsCache.invalidate(changeId);
                     return null;
                 } catch (RestApiException e) {
                     throw new RuntimeException(e);
                 }
             }
         };
-        accessGerrit(supplier, consumer, project, "Failed to post Gerrit review");
+        accessGerrit(supplier, consumer, project, "Failed to post Gerrit review",
+            GerritRequestExecutor.Priority.HIGH);
     }
 
     public void postSubmit(final String changeId,
@@ -159,13 +191,15 @@ public class GerritUtil {
             public Void get() {
                 try {
                     gerritClient.changes().id(changeId).current().submit(submitInput);
+                    changeDetailsCache.invalidate(changeId);
                     return null;
                 } catch (RestApiException e) {
                     throw new RuntimeException(e);
                 }
             }
         };
-        accessGerrit(supplier, consumer, project, "Failed to submit Gerrit change");
+        accessGerrit(supplier, consumer, project, "Failed to submit Gerrit change",
+            GerritRequestExecutor.Priority.HIGH);
     }
 
     @SuppressWarnings("unchecked")
@@ -176,13 +210,15 @@ public class GerritUtil {
             public Void get() {
                 try {
                     gerritClient.changes().id(changeId).publish();
+                    changeDetailsCache.invalidate(changeId);
                     return null;
                 } catch (RestApiException e) {
                     throw new RuntimeException(e);
                 }
             }
         };
-        accessGerrit(supplier, __ -> {}, project, "Failed to publish Gerrit change");
+        accessGerrit(supplier, __ -> {}, project, "Failed to publish Gerrit change",
+            GerritRequestExecutor.Priority.HIGH);
     }
 
     @SuppressWarnings("unchecked")
@@ -193,13 +229,15 @@ public class GerritUtil {
             public Void get() {
                 try {
                     gerritClient.changes().id(changeId).delete();
+                    changeDetailsCache.invalidate(changeId);
                     return null;
                 } catch (RestApiException e) {
                     throw new RuntimeException(e);
                 }
             }
         };
-        accessGerrit(supplier, __ -> {}, project, "Failed to delete Gerrit change");
+        accessGerrit(supplier, __ -> {}, project, "Failed to delete Gerrit change",
+            GerritRequestExecutor.Priority.HIGH);
     }
 
     @SuppressWarnings("unchecked")
@@ -211,13 +249,15 @@ public class GerritUtil {
             public Void get() {
                 try {
                     gerritClient.changes().id(changeId).abandon(abandonInput);
+                    changeDetailsCache.invalidate(changeId);
                     return null;
                 } catch (RestApiException e) {
                     throw new RuntimeException(e);
                 }
             }
         };
-        accessGerrit(supplier, __ -> {}, project, "Failed to abandon Gerrit change");
+        accessGerrit(supplier, __ -> {}, project, "Failed to abandon Gerrit change",
+            GerritRequestExecutor.Priority.HIGH);
     }
 
     @SuppressWarnings("unchecked")
@@ -229,13 +269,15 @@ public class GerritUtil {
             public Void get() {
                 try {
                     gerritClient.changes().id(changeId).addReviewer(reviewerName);
+                    changeDetailsCache.invalidate(changeId);
                     return null;
                 } catch (RestApiException e) {
                     throw new RuntimeException(e);
                 }
             }
         };
-        accessGerrit(supplier, __ -> {}, project, "Failed to add reviewer");
+        accessGerrit(supplier, __ -> {}, project, "Failed to add reviewer",
+            GerritRequestExecutor.Priority.HIGH);
     }
 
     /**
@@ -254,6 +296,7 @@ public class GerritUtil {
                     } else {
                         gerritClient.accounts().self().unstarChange(id);
                     }
+                    changeDetailsCache.invalidate(id);
                     return null;
                 } catch (RestApiException e) {
                     throw new RuntimeException(e);
@@ -261,7 +304,7 @@ public class GerritUtil {
             }
         };
         accessGerrit(supplier, __ -> {}, project, "Failed to star Gerrit change " +
-                "(not supported for Gerrit versions older than 2.8)");
+                "(not supported for Gerrit versions older than 2.8)", GerritRequestExecutor.Priority.HIGH);
     }
 
     @SuppressWarnings("unchecked")
@@ -286,17 +329,92 @@ public class GerritUtil {
         accessGerrit(supplier, __ -> {}, project, "Failed set file review status for Gerrit change");
     }
 
-    public void getChangesToReview(Project project, Consumer<List<ChangeInfo>> consumer) {
-        Changes.QueryRequest queryRequest = gerritClient.changes().query("is:open+reviewer:self")
+    /**
+     * Loads the changes of a background poll (see {@link ChangesPoller}) with low priority.
+     *
+     * @param updatedSince if not null, only the changes updated since then (with some margin) are loaded
+     */
+    public void pollChanges(String query,
+                            @Nullable Timestamp updatedSince,
+                            Project project,
+                            Consumer<List<ChangeInfo>> consumer) {
+        String ageQuery = updatedSince != null ? createAgeQuery(updatedSince) : "";
+        Changes.QueryRequest queryRequest = gerritClient.changes().query(joinQueries(query, ageQuery))
             .withOption(ListChangesOption.DETAILED_ACCOUNTS);
-        getChanges(queryRequest, project, consumer);
+        getChanges(queryRequest, project, consumer, GerritRequestExecutor.Priority.LOW);
     }
 
     public void getChangesForProject(String query, final Project project, final Consumer<LoadChangesProxy> consumer) {
-        if (!gerritSettings.getListAllChanges()) {
-            query = appendQueryStringForProject(project, query);
+        String projectQuery = joinQueries(query, getProjectScopeQuery(project));
+        if (isShardingRequired(projectQuery)) {
+            getChangesSharded(query, project, consumer);
+        } else {
+            getChanges(projectQuery, project, consumer);
+        }
+    }
+
+    /**
+     * @return the query part which restricts changes to the Gerrit projects of the provided project; empty if all
+     * changes should be listed
+     */
+    public String getProjectScopeQuery(Project project) {
+        if (gerritSettings.getListAllChanges()) {
+            return "";
         }
-        getChanges(query, project, consumer);
+        return getProjectQueryPart(project);
+    }
+
+    public static String joinQueries(String... queries) {
+        List<String> parts = Lists.newArrayList();
+        for (String query : queries) {
+            if (!Strings.isNullOrEmpty(query)) {
+                parts.add(query);
+            }
+        }
+        return Joiner.on('+').join(parts);
+    }
+
+    /**
+     * Loads the changes which have been updated since {@code since} (with some margin): the ones which match
+     * {@code query} and the ones (of {@code scopeQuery}) which do not match it anymore.
+     * Passes null to the consumer if the changes could not be loaded.
+     *
+     * @param query      complete query of the changes list (including {@code scopeQuery})
+     * @param scopeQuery see {@link #getProjectScopeQuery(Project)}
+     */
+    public void getChangesDelta(final String query,
+                                final String scopeQuery,
+                                Timestamp since,
+                                final Project project,
+                                Consumer<ChangesDelta> consumer) {
+        final String ageQuery = createAgeQuery(since);
+        Supplier<ChangesDelta> supplier = new Supplier<ChangesDelta>() {
+            @Override
+            public ChangesDelta get() {
+                try {
+                    List<ChangeInfo> updatedMatchingChanges = gerritClient.changes()
+                        .query(joinQueries(query, ageQuery))
+                        .withOptions(EnumSet.copyOf(ChangesListOptions.CHANGES_LIST_OPTIONS))
+                        .withLimit(MAX_DELTA_CHANGES)
+                        .get();
+                    List<ChangeInfo> updatedChangesInScope = gerritClient.changes()
+                        .query(joinQueries(scopeQuery, ageQuery))
+                        .withLimit(MAX_DELTA_CHANGES)
+                        .get();
+                    return new ChangesDelta(updatedMatchingChanges, updatedChangesInScope);
+                } catch (RestApiException e) {
+                    // caller falls back to a complete reload (which reports errors)
+                    log.info("Failed to load updated Gerrit changes.", e);
+                    return null;
+                }
+            }
+        };
+        accessGerrit(supplier, consumer, project);
+    }
+
+    private static String createAgeQuery(Timestamp since) {
+        long ageSeconds = Math.max(0, System.currentTimeMillis() - since.getTime()) / 1000 + DELTA_REFRESH_MARGIN_SECONDS;
+        return "-age:" + ageSeconds + "s";
     }
 
     public void getChanges(final String query, final Project project, final Consumer<LoadChangesProxy> consumer) {
@@ -304,66 +422,217 @@ public class GerritUtil {
             @Override
             public LoadChangesProxy get() {
                     Changes.QueryRequest queryRequest = gerritClient.changes().query(query)
-                            .withOptions(EnumSet.of(
-                                ListChangesOption.ALL_REVISIONS,
-                                ListChangesOption.DETAILED_ACCOUNTS,
-                                ListChangesOption.CHANGE_ACTIONS,
-                                ListChangesOption.CURRENT_ACTIONS,
-                                ListChangesOption.DETAILED_LABELS,
-                                ListChangesOption.LABELS
-                            ));
-                    return new LoadChangesProxy(queryRequest, GerritUtil.this, project);
+                            .withOptions(EnumSet.copyOf(ChangesListOptions.CHANGES_LIST_OPTIONS));
+                    boolean parallelPaging = gerritSettings.getListAllChanges() && gerritSettings.getParallelPageLoading();
+                    return new LoadChangesProxy(queryRequest, GerritUtil.this, project, parallelPaging);
+            }
+        };
+        accessGerrit(supplier, consumer, project);
+    }
+
+    /**
+     * @return true if the query is too long to be sent as is (see
+     * {@link com.urswolfer.intellij.plugin.gerrit.GerritSettings#getShardedQueryThreshold()}); it is split per project
+     * chunk by {@link #getChangesSharded(String, Project, Consumer)} instead
+     */
+    public boolean isShardingRequired(String query) {
+        int threshold = gerritSettings.getShardedQueryThreshold();
+        return threshold > 0 && query.length() > threshold;
+    }
+
+    /**
+     * Like {@link #getChanges(String, Project, Consumer)} for {@code filterQuery} restricted to the Gerrit projects of
+     * the provided project, but with one query per chunk of projects (see {@link ShardedChangesQuery}).
+     */
+    public void getChangesSharded(final String filterQuery, final Project project, Consumer<LoadChangesProxy> consumer) {
+        Supplier<LoadChangesProxy> supplier = new Supplier<LoadChangesProxy>() {
+            @Override
+            public LoadChangesProxy get() {
+                List<String> queries = ShardedChangesQuery.createShardQueries(filterQuery,
+                    gerritProjectIndex.getProjectNames(project), gerritSettings.getShardedQueryThreshold());
+                List<Changes.QueryRequest> queryRequests = Lists.newArrayList();
+                for (String query : queries) {
+                    queryRequests.add(gerritClient.changes().query(query)
+                        .withOptions(EnumSet.copyOf(ChangesListOptions.CHANGES_LIST_OPTIONS)));
+                }
+                log.debug(String.format("Query split into %d shards.", queryRequests.size()));
+                return new LoadChangesProxy(queryRequests, GerritUtil.this, project);
             }
         };
         accessGerrit(supplier, consumer, project);
     }
 
-    public void getChanges(final Changes.QueryRequest queryRequest, final Project project, Consumer<List<ChangeInfo>> consumer) {
+    /**
+     * Loads the provided changes (by number) with {@link ChangesListOptions#ENRICHED_CHANGE_OPTIONS} in a single request.
+     *
+     * @param abortCallback called on the EDT instead of the consumer if the request was cancelled or failed
+     */
+    public void getEnrichedChanges(Collection<Integer> changeNumbers,
+                                   Project project,
+                                   GerritRequestExecutor.Priority priority,
+                                   Consumer<List<ChangeInfo>> consumer,
+                                   Runnable abortCallback) {
+        final Changes.QueryRequest queryRequest =
+            ChangesListOptions.createEnrichedChangesQuery(gerritClient.changes(), changeNumbers);
         Supplier<List<ChangeInfo>> supplier = new Supplier<List<ChangeInfo>>() {
             @Override
             public List<ChangeInfo> get() {
                 try {
-                    return queryRequest.get();
+                    return queryChangesWithFallback(queryRequest);
                 } catch (RestApiException e) {
-                    // remove special handling (-> just notify error) once we drop Gerrit < 2.9 support
-                    if (e instanceof HttpStatusException) {
-                        HttpStatusException httpStatusException = (HttpStatusException) e;
-                        if (httpStatusException.getStatusCode() == 400) {
-                            boolean tryFallback = false;
-                            String message = httpStatusException.getMessage();
-                            if (message.matches(".*Content:.*\"-S\".*")) {
-                                tryFallback = true;
-                                queryRequest.withStart(0); // remove start, trust that sortkey is set
-                            }
-                            if (message.matches(".*Content:.*\"(CHANGE_ACTIONS|CURRENT_ACTIONS)\".*\"-o\".*")) {
-                                tryFallback = true;
-                                Set<ListChangesOption> options = queryRequest.getOptions();
-                                options.remove(ListChangesOption.CHANGE_ACTIONS);
-                                options.remove(ListChangesOption.CURRENT_ACTIONS);
-                                queryRequest.withOptions(options);
-                            }
-                            if (tryFallback) {
-                                try {
-                                    return queryRequest.get();
-                                } catch (RestApiException ex) {
-                                    notifyError(ex, "Failed to get Gerrit changes.", project);
-                                    return Collections.emptyList();
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        accessGerrit(supplier, consumer, abortCallback, project, "Failed to get Gerrit changes.", priority);
+    }
+
+    /**
+     * @return a new request with the same query and options as the provided one
+     */
+    public Changes.QueryRequest copyQueryRequest(Changes.QueryRequest queryRequest) {
+        return gerritClient.changes().query(queryRequest.getQuery())
+            .withOptions(EnumSet.copyOf(queryRequest.getOptions()));
+    }
+
+    /**
+     * @param abortCallback called on the EDT instead of the consumer if the request was cancelled
+     */
+    public Future<List<ChangeInfo>> getChanges(final Changes.QueryRequest queryRequest,
+                                               final Project project,
+                                               Consumer<List<ChangeInfo>> consumer,
+                                               @Nullable Runnable abortCallback) {
+        return getChanges(queryRequest, project, consumer, GerritRequestExecutor.Priority.NORMAL, abortCallback);
+    }
+
+    private Future<List<ChangeInfo>> getChanges(final Changes.QueryRequest queryRequest,
+                            final Project project,
+                            Consumer<List<ChangeInfo>> consumer,
+                            GerritRequestExecutor.Priority priority,
+                            @Nullable Runnable abortCallback) {
+        Supplier<List<ChangeInfo>> supplier = new Supplier<List<ChangeInfo>>() {
+            @Override
+            public List<ChangeInfo> get() {
+                return queryChanges(queryRequest, project);
+            }
+        };
+        return accessGerrit(supplier, consumer, abortCallback, project, null, priority);
+    }
+
+    private List<ChangeInfo> queryChanges(Changes.QueryRequest queryRequest, Project project) {
+        try {
+            return queryChangesWithFallback(queryRequest);
+        } catch (RestApiException e) {
+            notifyError(e, "Failed to get Gerrit changes.", project);
+            return Collections.emptyList();
+        }
+    }
+
+    private List<ChangeInfo> queryChangesWithFallback(Changes.QueryRequest queryRequest) throws RestApiException {
+        adaptToServer(queryRequest);
+        try {
+            return queryRequest.get();
+        } catch (RestApiException e) {
+            // only required if the server version is unknown (see ServerCapabilitiesProbe)
+            // remove special handling (-> just notify error) once we drop Gerrit < 2.9 support
+            if (e instanceof HttpStatusException) {
+                HttpStatusException httpStatusException = (HttpStatusException) e;
+                if (httpStatusException.getStatusCode() == 400) {
+                    boolean tryFallback = false;
+                    String message = httpStatusException.getMessage();
+                    if (message.matches(".*Content:.*\"-S\".*")) {
+                        tryFallback = true;
+                        queryRequest.withStart(0); // remove start, trust that sortkey is set
+                    }
+                    if (message.matches(".*Content:.*\"(CHANGE_ACTIONS|CURRENT_ACTIONS)\".*\"-o\".*")) {
+                        tryFallback = true;
+                        Set<ListChangesOption> options = queryRequest.getOptions();
+                        options.remove(ListChangesOption.CHANGE_ACTIONS);
+                        options.remove(ListChangesOption.CURRENT_ACTIONS);
+                        queryRequest.withOptions(options);
+                    }
+                    if (tryFallback) {
+                        return queryRequest.get();
+                    }
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes what the server does not support from the request, so that it does not need to be retried.
+     */
+    private void adaptToServer(Changes.QueryRequest queryRequest) {
+        ServerCapabilities capabilities = serverCapabilitiesProbe.get();
+        if (!capabilities.supportsStartOffset()) {
+            queryRequest.withStart(0); // paging with sortkey
+        }
+        Set<ListChangesOption> options = queryRequest.getOptions();
+        if (options != null) {
+            if (!capabilities.supportsChangeActions()) {
+                options.remove(ListChangesOption.CHANGE_ACTIONS);
+            }
+            if (!capabilities.supportsCurrentActions()) {
+                options.remove(ListChangesOption.CURRENT_ACTIONS);
+            }
+            queryRequest.withOptions(options);
+        }
+    }
+
+    /**
+     * Like {@link #getChanges(Changes.QueryRequest, Project, Consumer, Runnable)}, but parses the response incrementally: parsed
+     * changes are passed in batches to {@code batchConsumer} while the response is still being transferred. The
+     * {@code consumer} gets called once all changes have been passed on (also in case of errors); if the request was
+     * cancelled, {@code abortCallback} gets called instead.
+     */
+    public Future<StreamingChangesQuery.Result> getChangesStreamed(final Changes.QueryRequest queryRequest,
+                                                                   final Project project,
+                                                                   final Consumer<List<ChangeInfo>> batchConsumer,
+                                                                   Consumer<StreamingChangesQuery.Result> consumer,
+                                                                   @Nullable Runnable abortCallback) {
+        Supplier<StreamingChangesQuery.Result> supplier = new Supplier<StreamingChangesQuery.Result>() {
+            @Override
+            public StreamingChangesQuery.Result get() {
+                final AtomicInteger count = new AtomicInteger();
+                Consumer<List<ChangeInfo>> edtBatchConsumer = new Consumer<List<ChangeInfo>>() {
+                    @Override
+                    public void consume(final List<ChangeInfo> batch) {
+                        count.addAndGet(batch.size());
+                        ApplicationManager.getApplication().invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (!project.isDisposed()) {
+                                    batchConsumer.consume(batch);
                                 }
                             }
-                        }
+                        });
+                    }
+                };
+                adaptToServer(queryRequest);
+                try {
+                    return streamingChangesQuery.execute(queryRequest, edtBatchConsumer);
+                } catch (RestApiException e) {
+                    if (count.get() > 0) {
+                        // the changes passed on so far are kept; no further pages
+                        notifyError(e, "Failed to get Gerrit changes.", project);
+                        return new StreamingChangesQuery.Result(count.get(), null);
+                    }
+                    if (!(e instanceof HttpStatusException) || ((HttpStatusException) e).getStatusCode() != 400) {
+                        notifyError(e, "Failed to get Gerrit changes.", project);
+                        return new StreamingChangesQuery.Result(0, null);
                     }
-                    notifyError(e, "Failed to get Gerrit changes.", project);
-                    return Collections.emptyList();
+                    // the non-streaming path knows how to fall back for old Gerrit versions
+                    List<ChangeInfo> changeInfos = queryChanges(queryRequest, project);
+                    if (!changeInfos.isEmpty()) {
+                        edtBatchConsumer.consume(changeInfos);
+                        return new StreamingChangesQuery.Result(changeInfos.size(), Iterables.getLast(changeInfos));
+                    }
+                    return new StreamingChangesQuery.Result(0, null);
                 }
             }
         };
-        accessGerrit(supplier, consumer, project);
-    }
-
-    private String appendQueryStringForProject(Project project, String query) {
-        String projectQueryPart = getProjectQueryPart(project);
-        query = Joiner.on('+').skipNulls().join(Strings.emptyToNull(query), Strings.emptyToNull(projectQueryPart));
-        return query;
+        return accessGerrit(supplier, consumer, abortCallback, project, null, GerritRequestExecutor.Priority.NORMAL);
     }
 
     private String getProjectQueryPart(Project project) {
@@ -373,11 +642,13 @@ public class GerritUtil {
             return "";
         }
 
-        List<GitRemote> remotes = Lists.newArrayList();
-        for (GitRepository repository : repositories) {
-            remotes.addAll(repository.getRemotes());
-        }
-        List<String> projectNames = getProjectNames(remotes);
+        return createProjectQuery(gerritProjectIndex.getProjectNames(project));
+    }
+
+    /**
+     * @return a query which matches the changes of any of the provided Gerrit projects; empty if there are none
+     */
+    public static String createProjectQuery(Iterable<String> projectNames) {
         Iterable<String> projectNamesWithQueryPrefix = Iterables.transform(projectNames, new Function<String, String>() {
             @Override
             public String apply(String input) {
@@ -392,44 +663,7 @@ public class GerritUtil {
     }
 
     public List<String> getProjectNames(Collection<GitRemote> remotes) {
-        List<String> projectNames = Lists.newArrayList();
-        for (GitRemote remote : remotes) {
-            for (String remoteUrl : remote.getUrls()) {
-                remoteUrl = UrlUtils.stripGitExtension(remoteUrl);
-                String projectName = getProjectName(gerritSettings.getHost(), gerritSettings.getCloneBaseUrl(),
-                    remoteUrl);
-                if (!Strings.isNullOrEmpty(projectName) && remoteUrl.endsWith(projectName)) {
-                    projectNames.add(projectName);
-                }
-            }
-        }
-        return projectNames;
-    }
-
-    private String getProjectName(String gerritUrl, String gerritCloneBaseUrl,  String url) {
-        String baseUrl = Strings.isNullOrEmpty(gerritCloneBaseUrl) ? gerritUrl : gerritCloneBaseUrl;
-        if (!baseUrl.endsWith("/")) {
-            baseUrl = baseUrl + "/";
-        }
-
-        String basePath = UrlUtils.createUriFromGitConfigString(baseUrl).getPath();
-        String path = UrlUtils.createUriFromGitConfigString(url).getPath();
-
-        if (path.length() >= basePath.length() && path.startsWith(basePath)) {
-            path = path.substring(basePath.length());
-        }
-
-        path = UrlUtils.stripGitExtension(path);
-
-        if (path.endsWith("/")) {
-            path = path.substring(0, path.length() - 1);
-        }
-        // gerrit project names usually don't start with a slash
-        if (path.startsWith("/")) {
-            path = path.substring(1);
-        }
-
-        return path;
+        return GerritProjectIndex.getProjectNames(remotes, gerritSettings.getHost(), gerritSettings.getCloneBaseUrl());
     }
 
     public void showAddGitRepositoryNotification(final Project project) {
@@ -446,20 +680,43 @@ public class GerritUtil {
         notificationService.notifyWarning(notification);
     }
 
+    /**
+     * Loads the details of the provided change. If they are cached and not older than the provided change (usually
+     * a row of the changes list), the cached details are passed to the consumer without accessing Gerrit.
+     */
+    public void getChangeDetails(final ChangeInfo change, final Project project, final Consumer<ChangeInfo> consumer) {
+        ChangeInfo cachedChangeDetails = changeDetailsCache.get(gerritSettings.getHost(), change._number, change.updated);
+        if (cachedChangeDetails != null) {
+            consumer.consume(cachedChangeDetails);
+            return;
+        }
+        getChangeDetails(change._number, project, consumer);
+    }
+
     public void getChangeDetails(final int changeNr, final Project project, final Consumer<ChangeInfo> consumer) {
+        final EnumSet<ListChangesOption> options = EnumSet.of(
+                ListChangesOption.ALL_REVISIONS,
+                ListChangesOption.MESSAGES,
+                ListChangesOption.DETAILED_ACCOUNTS,
+                ListChangesOption.LABELS,
+                ListChangesOption.DETAILED_LABELS);
+        // several components request the details of the same change when it gets selected: only load them once
+        final SingleFlightRequests.Flight<ChangeInfo> flight = singleFlightRequests.join(
+            project, Arrays.asList(changeNr, EnumSet.copyOf(options)), consumer);
+        if (flight == null) {
+            return;
+        }
         Supplier<ChangeInfo> supplier = new Supplier<ChangeInfo>() {
             @Override
             public ChangeInfo get() {
+                if (!serverCapabilitiesProbe.get().supportsMessages()) {
+                    options.remove(ListChangesOption.MESSAGES);
+                }
                 try {
-                    EnumSet<ListChangesOption> options = EnumSet.of(
-                            ListChangesOption.ALL_REVISIONS,
-                            ListChangesOption.MESSAGES,
-                            ListChangesOption.DETAILED_ACCOUNTS,
-                            ListChangesOption.LABELS,
-                            ListChangesOption.DETAILED_LABELS);
                     try {
                         return gerritClient.changes().id(changeNr).get(options);
                     } catch (HttpStatusException e) {
+                        // only required if the server version is unknown (see ServerCapabilitiesProbe)
                         // remove special handling (-> just notify error) once we drop Gerrit < 2.7 support
                         if (e.getStatusCode() == 400) {
                             options.remove(ListChangesOption.MESSAGES);
@@ -474,10 +731,18 @@ public class GerritUtil {
                 }
             }
         };
-        accessGerrit(supplier, consumer, project);
+        Consumer<ChangeInfo> flightConsumer = new Consumer<ChangeInfo>() {
+            @Override
+            public void consume(ChangeInfo changeInfo) {
+                changeDetailsCache.put(gerritSettings.getHost(), changeInfo);
+                singleFlightRequests.complete(flight, changeInfo);
+            }
+        };
+        accessGerrit(supplier, flightConsumer, abandonFlight(flight), project, null, GerritRequestExecutor.Priority.HIGH);
     }
 
     /**
+     * Always loads the comments from Gerrit (e.g. drafts which are about to be published).
      * Support starting from Gerrit 2.7.
      */
     public void getComments(final int changeNr,
@@ -490,41 +755,115 @@ public class GerritUtil {
         Supplier<Map<String, List<CommentInfo>>> supplier = new Supplier<Map<String, List<CommentInfo>>>() {
             @Override
             public Map<String, List<CommentInfo>> get() {
-                try {
-                    Map<String, List<CommentInfo>> comments;
-                    if (includePublishedComments) {
-                        comments = gerritClient.changes().id(changeNr).revision(revision).comments();
-                    } else {
-                        comments = Maps.newHashMap();
-                    }
+                CommentsCache.RevisionComments comments = loadComments(null, changeNr, revision, project,
+                    includePublishedComments, includeDraftComments);
+                if (comments == null) {
+                    return new TreeMap<String, List<CommentInfo>>();
+                }
+                return comments.toMap(includePublishedComments, includeDraftComments);
+            }
+        };
+        accessGerrit(supplier, consumer, project, null, GerritRequestExecutor.Priority.HIGH);
+    }
 
-                    Map<String, List<CommentInfo>> drafts;
-                    if (includeDraftComments && gerritSettings.isLoginAndPasswordAvailable()) {
-                        drafts = gerritClient.changes().id(changeNr).revision(revision).drafts();
-                    } else {
-                        drafts = Maps.newHashMap();
-                    }
+    /**
+     * Like {@link #getComments(int, String, Project, boolean, boolean, Consumer)}, but published comments and drafts
+     * of a revision are cached (see {@link CommentsCache}) as long as the provided change has not been updated.
+     * Support starting from Gerrit 2.7.
+     */
+    public void getComments(final ChangeInfo change,
+                            final String revision,
+                            final Project project,
+                            final boolean includePublishedComments,
+                            final boolean includeDraftComments,
+                            final Consumer<Map<String, List<CommentInfo>>> consumer) {
+        final String host = gerritSettings.getHost();
+        CommentsCache.RevisionComments cachedComments = commentsCache.get(host, change._number, revision, change.updated);
+        if (cachedComments != null) {
+            consumer.consume(cachedComments.toMap(includePublishedComments, includeDraftComments));
+            return;
+        }
 
-                    HashMap<String, List<CommentInfo>> allComments = new HashMap<String, List<CommentInfo>>(drafts);
-                    for (Map.Entry<String, List<CommentInfo>> entry : comments.entrySet()) {
-                        List<CommentInfo> commentInfos = allComments.get(entry.getKey());
-                        if (commentInfos != null) {
-                            commentInfos.addAll(entry.getValue());
-                        } else {
-                            allComments.put(entry.getKey(), entry.getValue());
-                        }
-                    }
-                    return allComments;
-                } catch (RestApiException e) {
-                    // remove check once we drop Gerrit < 2.7 support and fail in any case
-                    if (!(e instanceof HttpStatusException) || ((HttpStatusException) e).getStatusCode() != 404) {
-                        notifyError(e, "Failed to get Gerrit comments.", project);
-                    }
-                    return new TreeMap<String, List<CommentInfo>>();
+        Consumer<CommentsCache.RevisionComments> commentsConsumer = new Consumer<CommentsCache.RevisionComments>() {
+            @Override
+            public void consume(CommentsCache.RevisionComments comments) {
+                if (comments == null) {
+                    consumer.consume(new TreeMap<String, List<CommentInfo>>());
+                } else {
+                    consumer.consume(comments.toMap(includePublishedComments, includeDraftComments));
                 }
             }
         };
-        accessGerrit(supplier, consumer, project);
+        // all diff viewers of a change request the comments of the same revision at once: only load them once
+        final SingleFlightRequests.Flight<CommentsCache.RevisionComments> flight = singleFlightRequests.join(
+            project, Arrays.asList("comments", change._number, revision), commentsConsumer);
+        if (flight == null) {
+            return;
+        }
+        Supplier<CommentsCache.RevisionComments> supplier = new Supplier<CommentsCache.RevisionComments>() {
+            @Override
+            public CommentsCache.RevisionComments get() {
+                CommentsCache.RevisionComments comments = loadComments(change, change._number, revision, project, true, true);
+                if (comments != null) {
+                    commentsCache.put(host, change._number, revision, comments);
+                }
+                return comments;
+            }
+        };
+        Consumer<CommentsCache.RevisionComments> flightConsumer = new Consumer<CommentsCache.RevisionComments>() {
+            @Override
+            public void consume(CommentsCache.RevisionComments comments) {
+                singleFlightRequests.complete(flight, comments);
+            }
+        };
+        accessGerrit(supplier, flightConsumer, abandonFlight(flight), project, null, GerritRequestExecutor.Priority.HIGH);
+    }
+
+    private Runnable abandonFlight(final SingleFlightRequests.Flight<?> flight) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                singleFlightRequests.abandon(flight);
+            }
+        };
+    }
+
+    /**
+     * @return the loaded comments or null if loading failed
+     */
+    private CommentsCache.RevisionComments loadComments(ChangeInfo change,
+                                                        int changeNr,
+                                                        String revision,
+                                                        Project project,
+                                                        boolean includePublishedComments,
+                                                        boolean includeDraftComments) {
+        try {
+            Map<String, List<CommentInfo>> comments;
+            if (includePublishedComments) {
+                comments = gerritClient.changes().id(changeNr).revision(revision).comments();
+            } else {
+                comments = Maps.newHashMap();
+            }
+
+            Map<String, List<CommentInfo>> drafts;
+            if (includeDraftComments && gerritSettings.isLoginAndPasswordAvailable()) {
+                drafts = gerritClient.changes().id(changeNr).revision(revision).drafts();
+            } else {
+                drafts = Maps.newHashMap();
+            }
+
+            return new CommentsCache.RevisionComments(
+                change != null ? change.id : null,
+                change != null ? change.updated : null,
+                comments,
+                drafts);
+        } catch (RestApiException e) {
+            // remove check once we drop Gerrit < 2.7 support and fail in any case
+            if (!(e instanceof HttpStatusException) || ((HttpStatusException) e).getStatusCode() != 404) {
+                notifyError(e, "Failed to get Gerrit comments.", project);
+            }
+            return null;
+        }
     }
 
     public void saveDraftComment(final int changeNr,
@@ -545,13 +884,15 @@ public class GerritUtil {
                                 .createDraft(draftInput);
                         commentInfo = draftApi.get();
                     }
+                    commentsCache.putDraft(gerritSettings.getHost(), changeNr, revision, commentInfo);
                     return commentInfo;
                 } catch (RestApiException e) {
                     throw new RuntimeException(e);
                 }
             }
         };
-        accessGerrit(supplier, consumer, project, "Failed to save draft comment");
+        accessGerrit(supplier, consumer, project, "Failed to save draft comment",
+            GerritRequestExecutor.Priority.HIGH);
     }
 
     public void deleteDraftComment(final int changeNr,
@@ -564,13 +905,15 @@ public class GerritUtil {
             public Void get() {
                 try {
                     gerritClient.changes().id(changeNr).revision(revision).draft(draftCommentId).delete();
+                    commentsCache.removeDraft(gerritSettings.getHost(), changeNr, revision, draftCommentId);
                     return null;
                 } catch (RestApiException e) {
                     throw new RuntimeException(e);
                 }
             }
         };
-        accessGerrit(supplier, consumer, project, "Failed to delete draft comment");
+        accessGerrit(supplier, consumer, project, "Failed to delete draft comment",
+            GerritRequestExecutor.Priority.HIGH);
     }
 
     private boolean testConnection(GerritAuthData gerritAuthData) throws RestApiException {
@@ -677,54 +1020,56 @@ public class GerritUtil {
         return message;
     }
 
-    private <T> void accessGerrit(final Supplier<T> supplier, final Consumer<T> consumer, final Project project) {
-        accessGerrit(supplier, consumer, project, null);
+    private <T> Future<T> accessGerrit(final Supplier<T> supplier, final Consumer<T> consumer, final Project project) {
+        return accessGerrit(supplier, consumer, project, null);
+    }
+
+    private <T> Future<T> accessGerrit(final Supplier<T> supplier,
+                                       final Consumer<T> consumer,
+                                       final Project project,
+                                       final String errorMessage) {
+        return accessGerrit(supplier, consumer, project, errorMessage, GerritRequestExecutor.Priority.NORMAL);
     }
 
     /**
      * @param errorMessage if the provided supplier throws an exception, this error message is displayed (if it is not null)
      *                     and the provided consumer will not be executed.
+     * @param priority requests with a higher priority are executed before queued requests with a lower priority
      */
-    private <T> void accessGerrit(final Supplier<T> supplier,
-                              final Consumer<T> consumer,
-                              final Project project,
-                              final String errorMessage) {
-        ApplicationManager.getApplication().invokeLater(new Runnable() {
+    private <T> Future<T> accessGerrit(final Supplier<T> supplier,
+                                       final Consumer<T> consumer,
+                                       final Project project,
+                                       final String errorMessage,
+                                       final GerritRequestExecutor.Priority priority) {
+        return accessGerrit(supplier, consumer, null, project, errorMessage, priority);
+    }
+
+    /**
+     * @param abortCallback called on the EDT instead of the consumer if the request was cancelled or failed
+     */
+    private <T> Future<T> accessGerrit(final Supplier<T> supplier,
+                                       final Consumer<T> consumer,
+                                       @Nullable final Runnable abortCallback,
+                                       final Project project,
+                                       final String errorMessage,
+                                       final GerritRequestExecutor.Priority priority) {
+        Callable<T> callable = new Callable<T>() {
             @Override
-            public void run() {
-                if (project.isDisposed()) {
-                    return;
-                }
-                Task.Backgroundable backgroundTask = new Task.Backgroundable(project, "Accessing Gerrit", true) {
-                    public void run(@NotNull ProgressIndicator indicator) {
-                        if (project.isDisposed()) {
-                            return;
-                        }
-                        try {
-                            final T result = supplier.get();
-                            ApplicationManager.getApplication().invokeLater(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (project.isDisposed()) {
-                                        return;
-                                    }
-                                    //noinspection unchecked
-                                    consumer.consume(result);
-                                }
-                            });
-                        } catch (RuntimeException e) {
-                            if (errorMessage != null) {
-                                notifyError(e, errorMessage, project);
-                            } else {
-                                throw e;
-                            }
-                        }
+            public T call() {
+                try {
+                    return supplier.get();
+                } catch (RuntimeException e) {
+                    if (errorMessage != null) {
+                        notifyError(e, errorMessage, project);
+                        // error is reported already; just make sure that the consumer is not called
+                        throw new ProcessCanceledException();
+                    } else {
+                        throw e;
                     }
-                };
-                gerritSettings.preloadPassword();
-                backgroundTask.queue();
+                }
             }
-        });
+        };
+        return requestExecutor.submit(project, priority, callable, consumer, abortCallback);
     }
 
     private void notifyError(Throwable throwable, String errorMessage, Project project) {
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.urswolfer.gerrit.client.rest.GerritAuthData;
+import com.urswolfer.gerrit.client.rest.http.HttpClientBuilderExtension;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every request in the {@link RequestStatistics}: time until the response headers arrived, status code,
+ * retries (connection retries and redirects) and the number of bytes transferred for the body (before decompression).
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class InstrumentationClientBuilderExtension extends HttpClientBuilderExtension {
+
+    private static final String STATE_ATTRIBUTE = InstrumentationClientBuilderExtension.class.getName() + ".state";
+
+    @Inject
+    private RequestStatistics requestStatistics;
+
+    @Override
+    public HttpClientBuilder extend(HttpClientBuilder httpClientBuilder, GerritAuthData authData) {
+        HttpClientBuilder builder = super.extend(httpClientBuilder, authData);
+        builder.addInterceptorFirst(new HttpRequestInterceptor() {
+            @Override
+            public void process(HttpRequest request, HttpContext context) {
+                RequestState state = (RequestState) context.getAttribute(STATE_ATTRIBUTE);
+                if (state == null) {
+                    state = new RequestState();
+                    context.setAttribute(STATE_ATTRIBUTE, state);
+                }
+                // called again for retries and redirects
+                state.attempts++;
+                state.endpoint = RequestStatistics.getEndpointTemplate(request.getRequestLine().getUri());
+                state.startNanos = System.nanoTime();
+            }
+        });
+        // runs before the content gets decoded: the transferred bytes are counted
+        builder.addInterceptorFirst(new HttpResponseInterceptor() {
+            @Override
+            public void process(HttpResponse response, HttpContext context) {
+                RequestState state = (RequestState) context.getAttribute(STATE_ATTRIBUTE);
+                if (state == null) {
+                    return;
+                }
+                long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - state.startNanos);
+                requestStatistics.recordResponse(
+                    state.endpoint, response.getStatusLine().getStatusCode(), latencyMs, state.attempts - 1);
+                state.attempts = 0;
+                HttpEntity entity = response.getEntity();
+                if (entity != null) {
+                    response.setEntity(new CountingEntity(entity, state.endpoint));
+                }
+            }
+        });
+        return builder;
+    }
+
+    private static final class RequestState {
+        private int attempts;
+        private String endpoint;
+        private long startNanos;
+    }
+
+    private final class CountingEntity extends HttpEntityWrapper {
+        private final String endpoint;
+
+        private CountingEntity(HttpEntity wrappedEntity, String endpoint) {
+            super(wrappedEntity);
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new CountingInputStream(super.getContent(), endpoint);
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            InputStream content = getContent();
+            try {
+                byte[] buffer = new byte[4096];
+                int n;
+                while ((n = content.read(buffer)) != -1) {
+                    outStream.write(buffer, 0, n);
+                }
+            } finally {
+                content.close();
+            }
+        }
+    }
+
+    /**
+     * Records the number of bytes read once the stream gets closed.
+     */
+    private final class CountingInputStream extends FilterInputStream {
+        private final String endpoint;
+        private long bytes;
+        private boolean closed;
+
+        private CountingInputStream(InputStream in, String endpoint) {
+            super(in);
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                bytes += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            bytes += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                requestStatistics.recordResponseSize(endpoint, bytes);
+            }
+            super.close();
+        }
+    }
+}
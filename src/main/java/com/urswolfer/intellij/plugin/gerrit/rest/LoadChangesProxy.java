@@ -18,64 +18,405 @@ package com.urswolfer.intellij.plugin.gerrit.rest;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.gerrit.extensions.api.changes.Changes;
 import com.google.gerrit.extensions.common.ChangeInfo;
 import com.intellij.openapi.project.Project;
 import com.intellij.util.Consumer;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 /**
+ * Loads the changes of a query page by page.
+ *
+ * The page size adapts to the number of visible rows and to the measured round trip time (slow servers get fewer,
+ * larger requests). By default, at most one page is loaded at a time; once the query changes, the proxy gets
+ * {@link #cancel() cancelled} and drops pending results.
+ *
+ * In parallel mode (opt-in, see {@link com.urswolfer.intellij.plugin.gerrit.GerritSettings#getParallelPageLoading()}),
+ * up to {@link #MAX_PARALLEL_PAGES} pages with independent start offsets are requested concurrently once it is known
+ * that the server does not require a sortkey (Gerrit 2.9 or newer). Pages are passed to the consumer strictly in
+ * order, each as soon as it and all previous pages are available.
+ *
+ * Pages loaded one at a time are streamed (see {@link StreamingChangesQuery}): the consumer receives the first changes
+ * while the rest of the page is still being transferred.
+ *
+ * In sharded mode (see {@link GerritUtil#isShardingRequired(String)}), the query is split into several queries, one
+ * per chunk of projects. The next pages of all shards are requested concurrently and merged by
+ * {@link ShardedChangesQuery}; the consumer receives the changes in the order of the unsharded query.
+ *
+ * If a request gets cancelled from outside (e.g. with the progress indicator), the page is not passed on; the proxy
+ * is ready to load it again with the next {@link #getNextPage} call.
+ *
  * @author Thomas Forrer
  */
 public class LoadChangesProxy {
-    private static final int PAGE_SIZE = 25;
+    private static final int MIN_PAGE_SIZE = 25;
+    private static final int MAX_PAGE_SIZE = 250;
+    /**
+     * Round trip time for which a page contains twice the visible rows; slower round trips load proportionally more.
+     */
+    private static final long TARGET_LATENCY_MS = 500;
+    private static final int PARALLEL_PAGE_SIZE = 100;
+    private static final int MAX_PARALLEL_PAGES = 4;
 
     private final Changes.QueryRequest queryRequest;
     private final GerritUtil gerritUtil;
     private final Project project;
+    private final boolean parallelPaging;
+
+    // guarded by this
     private String sortkey;
     private boolean hasMore = true;
-    private final List<ChangeInfo> changes = Lists.newArrayList();
-    private final Lock lock = new ReentrantLock();
+    private boolean loading = false;
+    private boolean cancelled = false;
+    private int loadedCount = 0;
+    private int visibleRows = MIN_PAGE_SIZE / 2;
+    private long lastLatencyMs = 0;
+    private Future<?> pendingRequest;
+    // parallel mode: pages by start offset; loadedCount is the start of the next page to pass on
+    private final Map<Integer, Future<?>> pendingPages = Maps.newHashMap();
+    private final Map<Integer, List<ChangeInfo>> completedPages = Maps.newHashMap();
+    private Consumer<List<ChangeInfo>> pageConsumer;
+    // sharded mode
+    private final List<Changes.QueryRequest> shardRequests;
+    private final ShardedChangesQuery shardedQuery;
+    private final Map<Integer, Future<?>> pendingShards = Maps.newHashMap();
+    private int remainingPageSize;
 
     public LoadChangesProxy(Changes.QueryRequest queryRequest,
                             GerritUtil gerritUtil,
                             Project project) {
+        this(queryRequest, gerritUtil, project, false);
+    }
+
+    public LoadChangesProxy(Changes.QueryRequest queryRequest,
+                            GerritUtil gerritUtil,
+                            Project project,
+                            boolean parallelPaging) {
         this.queryRequest = queryRequest;
         this.gerritUtil = gerritUtil;
         this.project = project;
+        this.parallelPaging = parallelPaging;
+        this.shardRequests = null;
+        this.shardedQuery = null;
+    }
+
+    /**
+     * Sharded mode: the changes of all provided queries are merged by last update.
+     */
+    public LoadChangesProxy(List<Changes.QueryRequest> shardRequests,
+                            GerritUtil gerritUtil,
+                            Project project) {
+        this.queryRequest = null;
+        this.gerritUtil = gerritUtil;
+        this.project = project;
+        this.parallelPaging = false;
+        this.shardRequests = shardRequests;
+        this.shardedQuery = new ShardedChangesQuery(shardRequests.size());
     }
 
     /**
-     * Load the next page of changes into the provided consumer
+     * Load the next page of changes into the provided consumer.
+     * Does nothing if a page is being loaded already, all changes are loaded or this proxy has been cancelled.
+     *
+     * Pages may be passed on in several parts while they are being transferred; the consumer gets called once more
+     * with an empty list when a streamed page is complete.
      */
     public void getNextPage(final Consumer<List<ChangeInfo>> consumer) {
-        if (hasMore) {
-            lock.lock();
-            Changes.QueryRequest myRequest = queryRequest.withLimit(PAGE_SIZE).withStart(changes.size());
+        if (shardedQuery != null) {
+            synchronized (this) {
+                if (!hasMore || loading || cancelled) {
+                    return;
+                }
+                loading = true;
+                pageConsumer = consumer;
+                remainingPageSize = getPageSize();
+            }
+            continueShardedPage();
+            return;
+        }
+        if (canLoadPagesInParallel()) {
+            getNextPagesInParallel(consumer);
+            return;
+        }
+        Changes.QueryRequest myRequest;
+        final long startTime = System.currentTimeMillis();
+        synchronized (this) {
+            if (!hasMore || loading || cancelled) {
+                return;
+            }
+            loading = true;
+            myRequest = queryRequest.withLimit(getPageSize()).withStart(loadedCount);
             // remove sortkey handling once we drop Gerrit < 2.9 support
             if (sortkey != null) {
                 myRequest.withSortkey(sortkey);
             }
-            Consumer<List<ChangeInfo>> myConsumer = new Consumer<List<ChangeInfo>>() {
-                @Override
-                public void consume(List<ChangeInfo> changeInfos) {
-                    if (changeInfos != null && !changeInfos.isEmpty()) {
-                        ChangeInfo lastChangeInfo = Iterables.getLast(changeInfos);
+        }
+        Consumer<List<ChangeInfo>> batchConsumer = new Consumer<List<ChangeInfo>>() {
+            @Override
+            public void consume(List<ChangeInfo> changeInfos) {
+                synchronized (LoadChangesProxy.this) {
+                    if (cancelled) {
+                        return;
+                    }
+                }
+                consumer.consume(changeInfos);
+            }
+        };
+        Consumer<StreamingChangesQuery.Result> resultConsumer = new Consumer<StreamingChangesQuery.Result>() {
+            @Override
+            public void consume(StreamingChangesQuery.Result result) {
+                synchronized (LoadChangesProxy.this) {
+                    loading = false;
+                    pendingRequest = null;
+                    if (cancelled) {
+                        return;
+                    }
+                    lastLatencyMs = System.currentTimeMillis() - startTime;
+                    ChangeInfo lastChangeInfo = result.getLastChange();
+                    if (lastChangeInfo != null) {
                         hasMore = lastChangeInfo._moreChanges != null && lastChangeInfo._moreChanges;
                         sortkey = lastChangeInfo._sortkey;
-                        changes.addAll(changeInfos);
                     } else {
                         hasMore = false;
                     }
-                    consumer.consume(changeInfos);
-                    lock.unlock();
+                    loadedCount += result.getCount();
+                }
+                consumer.consume(Collections.<ChangeInfo>emptyList());
+            }
+        };
+        Runnable abortCallback = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (LoadChangesProxy.this) {
+                    loading = false;
+                    pendingRequest = null;
+                }
+            }
+        };
+        Future<?> request = gerritUtil.getChangesStreamed(myRequest, project, batchConsumer, resultConsumer, abortCallback);
+        synchronized (this) {
+            if (loading) {
+                pendingRequest = request;
+            }
+        }
+    }
+
+    /**
+     * The first page is always loaded alone: it tells whether the server still requires sortkey based paging.
+     */
+    private synchronized boolean canLoadPagesInParallel() {
+        return parallelPaging && loadedCount > 0 && sortkey == null && !loading;
+    }
+
+    private void getNextPagesInParallel(Consumer<List<ChangeInfo>> consumer) {
+        Map<Integer, Changes.QueryRequest> requests = Maps.newTreeMap();
+        synchronized (this) {
+            pageConsumer = consumer;
+            // pages which have been aborted are requested again
+            int start = loadedCount;
+            while (hasMore && !cancelled && pendingPages.size() + completedPages.size() < MAX_PARALLEL_PAGES) {
+                if (!pendingPages.containsKey(start) && !completedPages.containsKey(start)) {
+                    // request objects are mutable; every concurrent request needs its own
+                    Changes.QueryRequest request = gerritUtil.copyQueryRequest(queryRequest)
+                        .withLimit(PARALLEL_PAGE_SIZE)
+                        .withStart(start);
+                    requests.put(start, request);
+                    pendingPages.put(start, null);
+                }
+                start += PARALLEL_PAGE_SIZE;
+            }
+        }
+        for (Map.Entry<Integer, Changes.QueryRequest> entry : requests.entrySet()) {
+            final int start = entry.getKey();
+            Future<?> request = gerritUtil.getChanges(entry.getValue(), project, new Consumer<List<ChangeInfo>>() {
+                @Override
+                public void consume(List<ChangeInfo> changeInfos) {
+                    pageLoaded(start, changeInfos);
+                }
+            }, new Runnable() {
+                @Override
+                public void run() {
+                    pageAborted(start);
+                }
+            });
+            synchronized (this) {
+                if (pendingPages.containsKey(start)) {
+                    pendingPages.put(start, request);
                 }
-            };
-            gerritUtil.getChanges(myRequest, project, myConsumer);
+            }
         }
     }
+
+    private void pageLoaded(int start, List<ChangeInfo> changeInfos) {
+        List<List<ChangeInfo>> pagesInOrder = Lists.newArrayList();
+        List<Future<?>> obsoleteRequests = Lists.newArrayList();
+        Consumer<List<ChangeInfo>> consumer;
+        synchronized (this) {
+            if (cancelled || !pendingPages.containsKey(start)) {
+                return;
+            }
+            pendingPages.remove(start);
+            completedPages.put(start, changeInfos != null ? changeInfos : Collections.<ChangeInfo>emptyList());
+            while (hasMore && completedPages.containsKey(loadedCount)) {
+                List<ChangeInfo> page = completedPages.remove(loadedCount);
+                if (!page.isEmpty()) {
+                    pagesInOrder.add(page);
+                }
+                loadedCount += PARALLEL_PAGE_SIZE; // page offsets are fixed, even if a page contains fewer changes
+                hasMore = !page.isEmpty() && Boolean.TRUE.equals(Iterables.getLast(page)._moreChanges);
+            }
+            if (!hasMore) {
+                // pages behind the last change are empty anyway
+                obsoleteRequests.addAll(pendingPages.values());
+                pendingPages.clear();
+                completedPages.clear();
+            }
+            consumer = pageConsumer;
+        }
+        for (Future<?> request : obsoleteRequests) {
+            if (request != null) {
+                request.cancel(true);
+            }
+        }
+        for (List<ChangeInfo> page : pagesInOrder) {
+            consumer.consume(page);
+        }
+    }
+
+    private synchronized void pageAborted(int start) {
+        pendingPages.remove(start);
+    }
+
+    /**
+     * Passes on the merged changes which are ready and loads the next page of each shard which is required to
+     * continue; completes the page once it is full or all shards are exhausted.
+     */
+    private void continueShardedPage() {
+        List<ChangeInfo> changes;
+        Map<Integer, Changes.QueryRequest> requests = Maps.newTreeMap();
+        boolean pageComplete;
+        Consumer<List<ChangeInfo>> consumer;
+        synchronized (this) {
+            if (cancelled || !loading) {
+                return;
+            }
+            changes = shardedQuery.take(remainingPageSize);
+            remainingPageSize -= changes.size();
+            loadedCount += changes.size();
+            if (remainingPageSize > 0) {
+                for (int shard : shardedQuery.startLoading()) {
+                    // request objects are mutable; every concurrent request needs its own
+                    Changes.QueryRequest request = gerritUtil.copyQueryRequest(shardRequests.get(shard))
+                        .withLimit(getPageSize())
+                        .withStart(shardedQuery.getStart(shard));
+                    if (shardedQuery.getSortkey(shard) != null) {
+                        request.withSortkey(shardedQuery.getSortkey(shard));
+                    }
+                    requests.put(shard, request);
+                    pendingShards.put(shard, null);
+                }
+            }
+            pageComplete = remainingPageSize == 0 || !shardedQuery.hasMore();
+            if (pageComplete) {
+                loading = false;
+                hasMore = shardedQuery.hasMore();
+            }
+            consumer = pageConsumer;
+        }
+        if (!changes.isEmpty()) {
+            consumer.consume(changes);
+        }
+        if (pageComplete) {
+            consumer.consume(Collections.<ChangeInfo>emptyList());
+            return;
+        }
+        for (Map.Entry<Integer, Changes.QueryRequest> entry : requests.entrySet()) {
+            final int shard = entry.getKey();
+            Future<?> request = gerritUtil.getChanges(entry.getValue(), project, new Consumer<List<ChangeInfo>>() {
+                @Override
+                public void consume(List<ChangeInfo> changeInfos) {
+                    shardLoaded(shard, changeInfos);
+                }
+            }, new Runnable() {
+                @Override
+                public void run() {
+                    shardAborted(shard);
+                }
+            });
+            synchronized (this) {
+                if (pendingShards.containsKey(shard)) {
+                    pendingShards.put(shard, request);
+                }
+            }
+        }
+    }
+
+    private void shardLoaded(int shard, List<ChangeInfo> changeInfos) {
+        synchronized (this) {
+            if (cancelled || !pendingShards.containsKey(shard)) {
+                return;
+            }
+            pendingShards.remove(shard);
+            shardedQuery.addPage(shard, changeInfos);
+        }
+        continueShardedPage();
+    }
+
+    /**
+     * The page is given up; the shard gets requested again with the next page.
+     */
+    private synchronized void shardAborted(int shard) {
+        if (cancelled || !pendingShards.containsKey(shard)) {
+            return;
+        }
+        pendingShards.remove(shard);
+        shardedQuery.abortLoading(shard);
+        if (pendingShards.isEmpty()) {
+            loading = false;
+        }
+    }
+
+    /**
+     * Used to size the next pages; should be updated whenever the visible area of the list changes.
+     */
+    public synchronized void setVisibleRows(int visibleRows) {
+        this.visibleRows = Math.max(1, visibleRows);
+    }
+
+    public synchronized boolean hasMore() {
+        return hasMore && !cancelled;
+    }
+
+    /**
+     * Cancels the pending request (if any); no further pages will be loaded.
+     */
+    public void cancel() {
+        List<Future<?>> requests = Lists.newArrayList();
+        synchronized (this) {
+            cancelled = true;
+            requests.add(pendingRequest);
+            requests.addAll(pendingPages.values());
+            requests.addAll(pendingShards.values());
+            pendingRequest = null;
+            pendingPages.clear();
+            pendingShards.clear();
+            completedPages.clear();
+        }
+        for (Future<?> request : requests) {
+            if (request != null) {
+                request.cancel(true);
+            }
+        }
+    }
+
+    private int getPageSize() {
+        double latencyFactor = 1 + (double) lastLatencyMs / TARGET_LATENCY_MS;
+        int pageSize = (int) (2 * visibleRows * latencyFactor);
+        return Math.max(MIN_PAGE_SIZE, Math.min(MAX_PAGE_SIZE, pageSize));
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.inject.Inject;
+import com.urswolfer.intellij.plugin.gerrit.Version;
+import org.apache.http.pool.PoolStats;
+
+import java.util.Map;
+
+/**
+ * Summary of the {@link RequestStatistics} and the state of connection pool and caches, e.g. to attach to an issue
+ * report when the plugin is slow.
+ *
+ * @author Urs Wolfer
+ */
+public class PerformanceReport {
+
+    @Inject
+    private RequestStatistics requestStatistics;
+    @Inject
+    private ConnectionPoolClientBuilderExtension connectionPoolClientBuilderExtension;
+    @Inject
+    private ConditionalRequestClientBuilderExtension conditionalRequestClientBuilderExtension;
+    @Inject
+    private ChangeDetailsCache changeDetailsCache;
+    @Inject
+    private CommentsCache commentsCache;
+
+    public String toJson() {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(createJson());
+    }
+
+    private JsonObject createJson() {
+        JsonObject report = new JsonObject();
+        report.addProperty("pluginVersion", Version.get());
+        report.addProperty("createdAt", System.currentTimeMillis());
+        report.add("bucketBoundsMs", toJson(RequestStatistics.BUCKET_BOUNDS_MS));
+
+        JsonObject endpoints = new JsonObject();
+        for (Map.Entry<String, RequestStatistics.EndpointStatistics> entry
+            : requestStatistics.getEndpointStatistics().entrySet()) {
+            RequestStatistics.EndpointStatistics statistics = entry.getValue();
+            JsonObject endpoint = new JsonObject();
+            endpoint.add("latency", toJson(statistics.getLatency()));
+            JsonObject statusCodes = new JsonObject();
+            for (Map.Entry<Integer, Integer> statusCode : statistics.getStatusCodes().entrySet()) {
+                statusCodes.addProperty(String.valueOf(statusCode.getKey()), statusCode.getValue());
+            }
+            endpoint.add("statusCodes", statusCodes);
+            endpoint.addProperty("retries", statistics.getRetries());
+            endpoint.addProperty("totalBytes", statistics.getTotalBytes());
+            endpoint.addProperty("averageBytes", statistics.getAverageBytes());
+            endpoint.addProperty("maxBytes", statistics.getMaxBytes());
+            endpoints.add(entry.getKey(), endpoint);
+        }
+        report.add("endpoints", endpoints);
+
+        JsonObject queueWaits = new JsonObject();
+        for (Map.Entry<GerritRequestExecutor.Priority, RequestStatistics.Histogram> entry
+            : requestStatistics.getQueueWaits().entrySet()) {
+            queueWaits.add(entry.getKey().name(), toJson(entry.getValue()));
+        }
+        report.add("executorQueueWait", queueWaits);
+
+        PoolStats poolStats = connectionPoolClientBuilderExtension.getPoolStats();
+        if (poolStats != null) {
+            JsonObject pool = new JsonObject();
+            pool.addProperty("leased", poolStats.getLeased());
+            pool.addProperty("available", poolStats.getAvailable());
+            pool.addProperty("pending", poolStats.getPending());
+            pool.addProperty("max", poolStats.getMax());
+            report.add("connectionPool", pool);
+        }
+
+        JsonObject caches = new JsonObject();
+        JsonObject changeDetails = new JsonObject();
+        changeDetails.addProperty("entries", changeDetailsCache.size());
+        changeDetails.addProperty("estimatedBytes", changeDetailsCache.getEstimatedMemoryBytes());
+        changeDetails.addProperty("hits", changeDetailsCache.getHitCount());
+        changeDetails.addProperty("misses", changeDetailsCache.getMissCount());
+        changeDetails.addProperty("evictions", changeDetailsCache.getEvictionCount());
+        caches.add("changeDetails", changeDetails);
+        JsonObject comments = new JsonObject();
+        comments.addProperty("entries", commentsCache.size());
+        caches.add("comments", comments);
+        JsonObject conditionalRequests = new JsonObject();
+        conditionalRequests.addProperty("entries", conditionalRequestClientBuilderExtension.size());
+        conditionalRequests.addProperty("bytes", conditionalRequestClientBuilderExtension.getCachedBytes());
+        conditionalRequests.addProperty("notModified", conditionalRequestClientBuilderExtension.getNotModifiedCount());
+        conditionalRequests.addProperty("fullResponses", conditionalRequestClientBuilderExtension.getFullResponseCount());
+        caches.add("conditionalRequests", conditionalRequests);
+        report.add("caches", caches);
+        return report;
+    }
+
+    private static JsonObject toJson(RequestStatistics.Histogram histogram) {
+        JsonObject json = new JsonObject();
+        json.addProperty("count", histogram.getCount());
+        json.addProperty("averageMs", histogram.getAverageMs());
+        json.addProperty("p50Ms", histogram.getPercentileMs(50));
+        json.addProperty("p90Ms", histogram.getPercentileMs(90));
+        json.addProperty("p99Ms", histogram.getPercentileMs(99));
+        json.addProperty("maxMs", histogram.getMaxMs());
+        json.add("buckets", toJson(histogram.getBucketCounts()));
+        return json;
+    }
+
+    private static JsonArray toJson(long[] values) {
+        JsonArray array = new JsonArray();
+        for (long value : values) {
+            array.add(value);
+        }
+        return array;
+    }
+}
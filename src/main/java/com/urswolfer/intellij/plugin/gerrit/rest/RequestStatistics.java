@@ -0,0 +1,295 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.inject.Singleton;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects latency, size, status code and retry statistics of Gerrit REST requests (see
+ * {@link InstrumentationClientBuilderExtension}) per endpoint template (e.g.
+ * {@code /changes/{change-id}/revisions/{revision-id}/comments}), and the time requests wait in the queue of the
+ * {@link GerritRequestExecutor}.
+ *
+ * Latencies are kept in histograms with fixed buckets; percentiles are estimated with the upper bound of the bucket.
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class RequestStatistics {
+
+    /**
+     * Upper bounds (inclusive, in ms) of the histogram buckets; the last bucket has no upper bound.
+     */
+    static final long[] BUCKET_BOUNDS_MS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    /**
+     * Path segments which are followed by an identifier; the identifier is replaced with the placeholder.
+     */
+    private static final Map<String, String> ID_PLACEHOLDERS = ImmutableMap.<String, String>builder()
+        .put("accounts", "{account-id}")
+        .put("branches", "{branch-id}")
+        .put("changes", "{change-id}")
+        .put("comments", "{comment-id}")
+        .put("drafts", "{draft-id}")
+        .put("files", "{file-id}")
+        .put("groups", "{group-id}")
+        .put("messages", "{change-message-id}")
+        .put("projects", "{project-name}")
+        .put("reviewers", "{account-id}")
+        .put("revisions", "{revision-id}")
+        .put("starred.changes", "{change-id}")
+        .build();
+    private static final List<String> ROOT_COLLECTIONS = Lists.newArrayList(
+        "access", "accounts", "changes", "config", "groups", "plugins", "projects", "login");
+
+    private final Map<String, EndpointStatistics> endpoints = Maps.newHashMap();
+    private final Map<GerritRequestExecutor.Priority, Histogram> queueWaits =
+        new EnumMap<GerritRequestExecutor.Priority, Histogram>(GerritRequestExecutor.Priority.class);
+
+    public synchronized void recordResponse(String endpoint, int statusCode, long latencyMs, int retries) {
+        EndpointStatistics statistics = getEndpointStatistics(endpoint);
+        statistics.latency.record(latencyMs);
+        statistics.retries += retries;
+        Integer count = statistics.statusCodes.get(statusCode);
+        statistics.statusCodes.put(statusCode, count == null ? 1 : count + 1);
+    }
+
+    /**
+     * Response sizes are recorded separately, as the body has not been read yet when the response arrives.
+     */
+    public synchronized void recordResponseSize(String endpoint, long bytes) {
+        EndpointStatistics statistics = getEndpointStatistics(endpoint);
+        statistics.bodies++;
+        statistics.bytes += bytes;
+        statistics.maxBytes = Math.max(statistics.maxBytes, bytes);
+    }
+
+    public synchronized void recordQueueWait(GerritRequestExecutor.Priority priority, long waitMs) {
+        Histogram histogram = queueWaits.get(priority);
+        if (histogram == null) {
+            histogram = new Histogram();
+            queueWaits.put(priority, histogram);
+        }
+        histogram.record(waitMs);
+    }
+
+    public synchronized void reset() {
+        endpoints.clear();
+        queueWaits.clear();
+    }
+
+    /**
+     * @return a copy of the statistics per endpoint, ordered by endpoint
+     */
+    public synchronized Map<String, EndpointStatistics> getEndpointStatistics() {
+        Map<String, EndpointStatistics> copy = new TreeMap<String, EndpointStatistics>();
+        for (Map.Entry<String, EndpointStatistics> entry : endpoints.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    public synchronized Map<GerritRequestExecutor.Priority, Histogram> getQueueWaits() {
+        Map<GerritRequestExecutor.Priority, Histogram> copy =
+            new EnumMap<GerritRequestExecutor.Priority, Histogram>(GerritRequestExecutor.Priority.class);
+        for (Map.Entry<GerritRequestExecutor.Priority, Histogram> entry : queueWaits.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    private EndpointStatistics getEndpointStatistics(String endpoint) {
+        EndpointStatistics statistics = endpoints.get(endpoint);
+        if (statistics == null) {
+            statistics = new EndpointStatistics();
+            endpoints.put(endpoint, statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * @param uri request URI (absolute or relative, optionally with query)
+     * @return the endpoint template of the URI: without host, context path, authentication prefix ({@code /a}),
+     * query and identifiers
+     */
+    public static String getEndpointTemplate(String uri) {
+        String path = uri;
+        int schemeIndex = path.indexOf("://");
+        if (schemeIndex >= 0) {
+            int pathIndex = path.indexOf('/', schemeIndex + 3);
+            path = pathIndex >= 0 ? path.substring(pathIndex) : "/";
+        }
+        int queryIndex = path.indexOf('?');
+        if (queryIndex >= 0) {
+            path = path.substring(0, queryIndex);
+        }
+        List<String> segments = Lists.newArrayList(Splitter.on('/').omitEmptyStrings().split(path));
+        int rootIndex = 0;
+        while (rootIndex < segments.size() && !ROOT_COLLECTIONS.contains(segments.get(rootIndex))) {
+            rootIndex++; // context path and "/a"
+        }
+        if (rootIndex == segments.size()) {
+            return path;
+        }
+        StringBuilder template = new StringBuilder();
+        String placeholder = null;
+        for (String segment : segments.subList(rootIndex, segments.size())) {
+            template.append('/').append(placeholder != null ? placeholder : segment);
+            placeholder = placeholder == null ? ID_PLACEHOLDERS.get(segment) : null;
+        }
+        if (path.endsWith("/")) {
+            template.append('/');
+        }
+        return template.toString();
+    }
+
+    public static final class EndpointStatistics {
+        private final Histogram latency;
+        private final Map<Integer, Integer> statusCodes;
+        private int retries;
+        private int bodies;
+        private long bytes;
+        private long maxBytes;
+
+        private EndpointStatistics() {
+            this(new Histogram(), new TreeMap<Integer, Integer>());
+        }
+
+        private EndpointStatistics(Histogram latency, Map<Integer, Integer> statusCodes) {
+            this.latency = latency;
+            this.statusCodes = statusCodes;
+        }
+
+        private EndpointStatistics copy() {
+            EndpointStatistics copy = new EndpointStatistics(latency.copy(), new TreeMap<Integer, Integer>(statusCodes));
+            copy.retries = retries;
+            copy.bodies = bodies;
+            copy.bytes = bytes;
+            copy.maxBytes = maxBytes;
+            return copy;
+        }
+
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        public Map<Integer, Integer> getStatusCodes() {
+            return Collections.unmodifiableMap(statusCodes);
+        }
+
+        /**
+         * @return number of responses with a status code of 400 or above
+         */
+        public int getErrorCount() {
+            int errors = 0;
+            for (Map.Entry<Integer, Integer> entry : statusCodes.entrySet()) {
+                if (entry.getKey() >= 400) {
+                    errors += entry.getValue();
+                }
+            }
+            return errors;
+        }
+
+        public int getRetries() {
+            return retries;
+        }
+
+        public long getTotalBytes() {
+            return bytes;
+        }
+
+        public long getAverageBytes() {
+            return bodies == 0 ? 0 : bytes / bodies;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+    }
+
+    public static final class Histogram {
+        private final long[] counts = new long[BUCKET_BOUNDS_MS.length + 1];
+        private long count;
+        private long totalMs;
+        private long maxMs;
+
+        private void record(long ms) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && ms > BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            totalMs += ms;
+            maxMs = Math.max(maxMs, ms);
+        }
+
+        private Histogram copy() {
+            Histogram copy = new Histogram();
+            System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+            copy.count = count;
+            copy.totalMs = totalMs;
+            copy.maxMs = maxMs;
+            return copy;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getAverageMs() {
+            return count == 0 ? 0 : totalMs / count;
+        }
+
+        public long getMaxMs() {
+            return maxMs;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return upper bound of the bucket which contains the percentile (the maximum for the last bucket)
+         */
+        public long getPercentileMs(double percentile) {
+            long threshold = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= threshold && seen > 0) {
+                    return bucket < BUCKET_BOUNDS_MS.length ? Math.min(BUCKET_BOUNDS_MS[bucket], maxMs) : maxMs;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @return number of values per bucket; see {@link #BUCKET_BOUNDS_MS}
+         */
+        public long[] getBucketCounts() {
+            return counts.clone();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Features of the Gerrit server which differ between versions; derived from the server version (see
+ * {@link ServerCapabilitiesProbe}), so that requests can be built for the server up front instead of retrying after
+ * a "400 Bad Request".
+ *
+ * @author Urs Wolfer
+ */
+public final class ServerCapabilities {
+
+    private static final Pattern VERSION_PATTERN = Pattern.compile("^v?(\\d+)\\.(\\d+).*");
+
+    /**
+     * Version could not be determined: all features are assumed to be available (requests fall back on errors).
+     */
+    public static final ServerCapabilities UNKNOWN = new ServerCapabilities(null, true, true, true, true);
+    /**
+     * Servers older than Gerrit 2.8 do not provide their version.
+     */
+    public static final ServerCapabilities BEFORE_2_8 = new ServerCapabilities(null, false, false, false, true);
+
+    private final String version;
+    private final boolean startOffset;
+    private final boolean currentActions;
+    private final boolean changeActions;
+    private final boolean messages;
+
+    private ServerCapabilities(String version,
+                               boolean startOffset,
+                               boolean currentActions,
+                               boolean changeActions,
+                               boolean messages) {
+        this.version = version;
+        this.startOffset = startOffset;
+        this.currentActions = currentActions;
+        this.changeActions = changeActions;
+        this.messages = messages;
+    }
+
+    public static ServerCapabilities forVersion(String version) {
+        Matcher matcher = version != null ? VERSION_PATTERN.matcher(version.trim()) : null;
+        if (matcher == null || !matcher.matches()) {
+            return UNKNOWN; // e.g. a development build
+        }
+        int major = Integer.parseInt(matcher.group(1));
+        int minor = Integer.parseInt(matcher.group(2));
+        return new ServerCapabilities(version.trim(),
+            isAtLeast(major, minor, 2, 9),
+            isAtLeast(major, minor, 2, 9),
+            isAtLeast(major, minor, 2, 11),
+            isAtLeast(major, minor, 2, 7));
+    }
+
+    private static boolean isAtLeast(int major, int minor, int requiredMajor, int requiredMinor) {
+        return major > requiredMajor || (major == requiredMajor && minor >= requiredMinor);
+    }
+
+    /**
+     * @return the server version or null if it is not known
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return true if query results can be paged with a start offset ({@code S}); otherwise a sortkey is required
+     * (Gerrit < 2.9)
+     */
+    public boolean supportsStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return true if the query option {@code CURRENT_ACTIONS} is supported
+     */
+    public boolean supportsCurrentActions() {
+        return currentActions;
+    }
+
+    /**
+     * @return true if the query option {@code CHANGE_ACTIONS} is supported
+     */
+    public boolean supportsChangeActions() {
+        return changeActions;
+    }
+
+    /**
+     * @return true if change details can be loaded with the option {@code MESSAGES}
+     */
+    public boolean supportsMessages() {
+        return messages;
+    }
+
+    @Override
+    public String toString() {
+        return version != null ? version : (this == BEFORE_2_8 ? "< 2.8" : "unknown");
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.base.Objects;
+import com.google.gerrit.extensions.restapi.RestApiException;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.intellij.openapi.diagnostic.Logger;
+import com.urswolfer.gerrit.client.rest.GerritRestApi;
+import com.urswolfer.gerrit.client.rest.http.HttpStatusException;
+import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
+
+/**
+ * Determines the {@link ServerCapabilities} of the configured Gerrit server once ({@code /config/server/version}) and
+ * keeps them until the host setting changes.
+ *
+ * Must not be called on the EDT (the first call per host accesses Gerrit).
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class ServerCapabilitiesProbe {
+
+    private static final long RETRY_AFTER_FAILURE_MS = 60 * 1000;
+
+    @Inject
+    private GerritSettings gerritSettings;
+    @Inject
+    private Provider<GerritRestApi> gerritClient;
+    @Inject
+    private Logger log;
+
+    private String host;
+    private ServerCapabilities capabilities;
+    private long failedAt;
+
+    public synchronized ServerCapabilities get() {
+        String currentHost = gerritSettings.getHost();
+        if (capabilities == null || !Objects.equal(host, currentHost)) {
+            if (Objects.equal(host, currentHost) && System.currentTimeMillis() - failedAt < RETRY_AFTER_FAILURE_MS) {
+                return ServerCapabilities.UNKNOWN;
+            }
+            host = currentHost;
+            capabilities = probe();
+            if (capabilities == null) {
+                failedAt = System.currentTimeMillis();
+                return ServerCapabilities.UNKNOWN;
+            }
+            log.info("Gerrit server version: " + capabilities);
+        }
+        return capabilities;
+    }
+
+    /**
+     * Probes the server again with the next request (e.g. after the login has been changed).
+     */
+    public synchronized void invalidate() {
+        host = null;
+        capabilities = null;
+        failedAt = 0;
+    }
+
+    private ServerCapabilities probe() {
+        try {
+            return ServerCapabilities.forVersion(gerritClient.get().config().server().getVersion());
+        } catch (HttpStatusException e) {
+            if (e.getStatusCode() == 404) {
+                return ServerCapabilities.BEFORE_2_8;
+            }
+            log.debug("Failed to get Gerrit server version.", e);
+            return null;
+        } catch (RestApiException e) {
+            log.debug("Failed to get Gerrit server version.", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.gerrit.extensions.common.ChangeInfo;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Paging state of a query which is split into several queries ("shards"), each restricted to a part of the Gerrit
+ * projects (see {@link #createShardQueries(String, Collection, int)}).
+ *
+ * Every shard is paged on its own; {@link #take(int)} merges the loaded changes by last update (newest first, like
+ * Gerrit sorts them) and drops changes which have been returned already. A change is only passed on once every shard
+ * which may still contain newer changes has a loaded change to compare with, so the merged result is in the same
+ * order as the result of the unsharded query.
+ *
+ * Not thread-safe; {@link LoadChangesProxy} guards it.
+ *
+ * @author Urs Wolfer
+ */
+public class ShardedChangesQuery {
+
+    private final Shard[] shards;
+    private final Set<String> passedOnChangeIds = Sets.newHashSet();
+
+    public ShardedChangesQuery(int shardCount) {
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * Splits the projects into chunks so that every query (filter query joined with the project clause of a chunk) is
+     * at most {@code maxQueryLength} characters long (unless a single project exceeds it already).
+     */
+    public static List<String> createShardQueries(String filterQuery,
+                                                  Collection<String> projectNames,
+                                                  int maxQueryLength) {
+        List<String> queries = Lists.newArrayList();
+        List<String> chunk = Lists.newArrayList();
+        for (String projectName : new LinkedHashSet<String>(projectNames)) {
+            chunk.add(projectName);
+            if (chunk.size() > 1
+                && GerritUtil.joinQueries(filterQuery, GerritUtil.createProjectQuery(chunk)).length() > maxQueryLength) {
+                chunk.remove(chunk.size() - 1);
+                queries.add(GerritUtil.joinQueries(filterQuery, GerritUtil.createProjectQuery(chunk)));
+                chunk = Lists.newArrayList(projectName);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            queries.add(GerritUtil.joinQueries(filterQuery, GerritUtil.createProjectQuery(chunk)));
+        }
+        return queries;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return the shards which need another page before changes can be merged; they are marked as loading
+     */
+    public List<Integer> startLoading() {
+        List<Integer> shardsToLoad = Lists.newArrayList();
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[i];
+            if (shard.hasMore && !shard.loading && shard.buffer.isEmpty()) {
+                shard.loading = true;
+                shardsToLoad.add(i);
+            }
+        }
+        return shardsToLoad;
+    }
+
+    public boolean isLoading() {
+        for (Shard shard : shards) {
+            if (shard.loading) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getStart(int shard) {
+        return shards[shard].start;
+    }
+
+    /**
+     * @return the sortkey for the next page of the shard (Gerrit < 2.9 only) or null
+     */
+    public String getSortkey(int shard) {
+        return shards[shard].sortkey;
+    }
+
+    /**
+     * The requested page has not been loaded (e.g. cancelled); it can be requested again.
+     */
+    public void abortLoading(int shard) {
+        shards[shard].loading = false;
+    }
+
+    /**
+     * @param changes the next page of the shard; null if it could not be loaded (the shard is not paged further)
+     */
+    public void addPage(int shardIndex, List<ChangeInfo> changes) {
+        Shard shard = shards[shardIndex];
+        shard.loading = false;
+        if (changes == null || changes.isEmpty()) {
+            shard.hasMore = false;
+            return;
+        }
+        ChangeInfo lastChange = Iterables.getLast(changes);
+        shard.hasMore = Boolean.TRUE.equals(lastChange._moreChanges);
+        shard.sortkey = lastChange._sortkey;
+        shard.start += changes.size();
+        shard.buffer.addAll(changes);
+    }
+
+    /**
+     * @return up to {@code maxCount} changes in merged order; fewer if a shard needs to be loaded first
+     */
+    public List<ChangeInfo> take(int maxCount) {
+        List<ChangeInfo> changes = Lists.newArrayList();
+        while (changes.size() < maxCount) {
+            Shard newest = null;
+            for (Shard shard : shards) {
+                if (shard.buffer.isEmpty()) {
+                    if (shard.hasMore) {
+                        return changes; // the next page of this shard might contain a newer change
+                    }
+                } else if (newest == null || isNewer(shard.buffer.peekFirst(), newest.buffer.peekFirst())) {
+                    newest = shard;
+                }
+            }
+            if (newest == null) {
+                break;
+            }
+            ChangeInfo change = newest.buffer.removeFirst();
+            // a change updated while paging moves to the top of its shard and might get returned twice
+            if (passedOnChangeIds.add(change.id)) {
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * @return true if there are changes left (loaded or not)
+     */
+    public boolean hasMore() {
+        for (Shard shard : shards) {
+            if (shard.hasMore || !shard.buffer.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNewer(ChangeInfo change, ChangeInfo other) {
+        if (change.updated != null && other.updated != null) {
+            int result = change.updated.compareTo(other.updated);
+            if (result != 0) {
+                return result > 0;
+            }
+        } else if (change.updated != other.updated) {
+            return change.updated != null;
+        }
+        return change._number > other._number;
+    }
+
+    private static final class Shard {
+        private final Deque<ChangeInfo> buffer = new ArrayDeque<ChangeInfo>();
+        private int start = 0;
+        private String sortkey;
+        private boolean hasMore = true;
+        private boolean loading = false;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.inject.Singleton;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.util.Consumer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of pending requests. Callers which request the same resource (same key) of a project while a request for
+ * it is still in flight are attached to the pending request instead of starting another one.
+ *
+ * A flight is removed once its request has finished, no matter whether its result gets delivered
+ * ({@link #complete(Flight, Object)}) or not ({@link #abandon(Flight)}); all flights of a project are removed when
+ * the project gets disposed.
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class SingleFlightRequests {
+
+    private final Map<Project, Map<Object, Flight<?>>> flights = Maps.newHashMap();
+
+    /**
+     * Attaches {@code consumer} to the pending request for {@code key}.
+     *
+     * @return null if there is already a request in flight for this key (the consumer will be called once it
+     * completes); otherwise a new flight which the caller needs to start and to {@link #complete(Flight, Object)
+     * complete} or {@link #abandon(Flight) abandon} once the request has finished
+     */
+    public synchronized <T> Flight<T> join(Project project, Object key, Consumer<T> consumer) {
+        Map<Object, Flight<?>> projectFlights = flights.get(project);
+        if (projectFlights == null) {
+            projectFlights = Maps.newHashMap();
+            flights.put(project, projectFlights);
+            registerDisposal(project);
+        }
+        @SuppressWarnings("unchecked")
+        Flight<T> flight = (Flight<T>) projectFlights.get(key);
+        if (flight != null) {
+            flight.consumers.add(consumer);
+            return null;
+        }
+        flight = new Flight<T>(project, key);
+        flight.consumers.add(consumer);
+        projectFlights.put(key, flight);
+        return flight;
+    }
+
+    /**
+     * Passes the result to all consumers which joined the provided flight.
+     */
+    public <T> void complete(Flight<T> flight, T result) {
+        for (Consumer<T> consumer : remove(flight)) {
+            consumer.consume(result);
+        }
+    }
+
+    /**
+     * Removes the flight without calling its consumers (e.g. because its request has been cancelled or failed); the
+     * next caller starts a new request.
+     */
+    public void abandon(Flight<?> flight) {
+        remove(flight);
+    }
+
+    synchronized int size() {
+        int size = 0;
+        for (Map<Object, Flight<?>> projectFlights : flights.values()) {
+            size += projectFlights.size();
+        }
+        return size;
+    }
+
+    private synchronized <T> List<Consumer<T>> remove(Flight<T> flight) {
+        Map<Object, Flight<?>> projectFlights = flights.get(flight.project);
+        if (projectFlights != null && projectFlights.get(flight.key) == flight) {
+            projectFlights.remove(flight.key);
+        }
+        List<Consumer<T>> consumers = Lists.newArrayList(flight.consumers);
+        flight.consumers.clear();
+        return consumers;
+    }
+
+    private void registerDisposal(final Project project) {
+        Disposer.register(project, () -> {
+            synchronized (SingleFlightRequests.this) {
+                flights.remove(project);
+            }
+        });
+    }
+
+    public static final class Flight<T> {
+        private final Project project;
+        private final Object key;
+        private final List<Consumer<T>> consumers = Lists.newArrayList();
+
+        private Flight(Project project, Object key) {
+            this.project = project;
+            this.key = key;
+        }
+    }
+}
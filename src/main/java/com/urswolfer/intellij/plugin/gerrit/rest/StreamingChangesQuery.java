@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.gerrit.extensions.api.changes.Changes;
+import com.google.gerrit.extensions.client.ListChangesOption;
+import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gerrit.extensions.restapi.RestApiException;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.util.Consumer;
+import com.urswolfer.gerrit.client.rest.GerritRestApi;
+import com.urswolfer.gerrit.client.rest.RestClient;
+import com.urswolfer.gerrit.client.rest.http.HttpStatusException;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.util.EntityUtils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Executes change queries and parses the response incrementally (pull parser), so that the first changes can be
+ * displayed while the rest of the response is still being transferred. Parsed changes are not retained; this keeps
+ * the memory footprint of large pages low.
+ *
+ * The request is executed by the REST client of gerrit-rest-java-client (authentication, login and cookies are
+ * handled as for all other requests); only reading the response body is done here, with the client's Gson instance.
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class StreamingChangesQuery {
+
+    private static final String JSON_PREFIX = ")]}'";
+    private static final int BATCH_SIZE = 25;
+
+    @Inject
+    private Provider<GerritRestApi> gerritClient;
+
+    /**
+     * Executes the query and passes the parsed changes in batches to {@code batchConsumer} (on the calling thread)
+     * while the response is being read.
+     *
+     * @throws HttpStatusException if the server did not accept the request (no changes have been passed on then)
+     */
+    public Result execute(Changes.QueryRequest queryRequest,
+                          Consumer<List<ChangeInfo>> batchConsumer) throws RestApiException {
+        RestClient restClient = gerritClient.get().restClient();
+        HttpResponse response = null;
+        try {
+            response = restClient.requestRest(buildPath(queryRequest), null, RestClient.HttpVerb.GET);
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                return new Result(0, null);
+            }
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8));
+            skipJsonPrefix(reader);
+            Result result = parse(new JsonReader(reader), restClient.getGson(), batchConsumer);
+            EntityUtils.consume(entity);
+            return result;
+        } catch (IOException | JsonParseException e) {
+            throw new RestApiException("Failed to load Gerrit changes: " + e.getMessage(), e);
+        } finally {
+            // releases the connection; a response which has not been read completely (cancelled) is discarded
+            if (response instanceof Closeable) {
+                try {
+                    ((Closeable) response).close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private Result parse(JsonReader jsonReader,
+                         Gson gson,
+                         Consumer<List<ChangeInfo>> batchConsumer) throws IOException {
+        int count = 0;
+        ChangeInfo lastChange = null;
+        List<ChangeInfo> batch = Lists.newArrayListWithCapacity(BATCH_SIZE);
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new ProcessCanceledException(); // request has been cancelled
+            }
+            lastChange = gson.fromJson(jsonReader, ChangeInfo.class);
+            batch.add(lastChange);
+            count++;
+            if (batch.size() == BATCH_SIZE) {
+                batchConsumer.consume(batch);
+                batch = Lists.newArrayListWithCapacity(BATCH_SIZE);
+            }
+        }
+        jsonReader.endArray();
+        if (!batch.isEmpty()) {
+            batchConsumer.consume(batch);
+        }
+        return new Result(count, lastChange);
+    }
+
+    /**
+     * Same parameters as gerrit-rest-java-client sends for {@link Changes.QueryRequest#get()} (the query is passed
+     * unchanged, as there).
+     */
+    static String buildPath(Changes.QueryRequest queryRequest) {
+        StringBuilder path = new StringBuilder("/changes/?q=").append(queryRequest.getQuery());
+        if (queryRequest.getLimit() > 0) {
+            path.append("&n=").append(queryRequest.getLimit());
+        }
+        if (queryRequest.getStart() > 0) {
+            path.append("&S=").append(queryRequest.getStart());
+        }
+        if (!Strings.isNullOrEmpty(queryRequest.getSortkey())) {
+            path.append("&N=").append(queryRequest.getSortkey());
+        }
+        for (ListChangesOption option : queryRequest.getOptions()) {
+            path.append("&o=").append(option);
+        }
+        return path.toString();
+    }
+
+    private static void skipJsonPrefix(BufferedReader reader) throws IOException {
+        reader.mark(JSON_PREFIX.length());
+        char[] prefix = new char[JSON_PREFIX.length()];
+        int read = 0;
+        while (read < prefix.length) {
+            int n = reader.read(prefix, read, prefix.length - read);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        if (!JSON_PREFIX.equals(new String(prefix, 0, read))) {
+            reader.reset();
+        }
+    }
+
+    /**
+     * Summary of a streamed response (the changes themselves have been passed on already).
+     */
+    public static final class Result {
+        private final int count;
+        private final ChangeInfo lastChange;
+
+        public Result(int count, ChangeInfo lastChange) {
+            this.count = count;
+            this.lastChange = lastChange;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @return the last change of the response (carries paging information) or null if there was none
+         */
+        public ChangeInfo getLastChange() {
+            return lastChange;
+        }
+    }
+}
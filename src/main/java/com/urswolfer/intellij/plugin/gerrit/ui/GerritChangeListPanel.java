@@ -22,6 +22,7 @@ import static com.intellij.icons.AllIcons.Actions.Checked;
 import static com.intellij.icons.AllIcons.Actions.MoveDown;
 import static com.intellij.icons.AllIcons.Actions.MoveUp;
 
+import com.google.common.base.Objects;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -47,6 +48,10 @@ import com.intellij.util.ui.StatusText;
 import com.intellij.util.ui.UIUtil;
 import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
 import com.urswolfer.intellij.plugin.gerrit.SelectedRevisions;
+import com.urswolfer.intellij.plugin.gerrit.git.ChangesPrefetcher;
+import com.urswolfer.intellij.plugin.gerrit.rest.ChangesListOptions;
+import com.urswolfer.intellij.plugin.gerrit.rest.GerritRequestExecutor;
+import com.urswolfer.intellij.plugin.gerrit.rest.GerritUtil;
 import com.urswolfer.intellij.plugin.gerrit.rest.LoadChangesProxy;
 import git4idea.GitUtil;
 import git4idea.repo.GitRepositoryManager;
@@ -63,6 +68,11 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.AdjustmentEvent;
 import java.awt.event.AdjustmentListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -75,33 +85,64 @@ import java.util.Set;
  * @author Urs Wolfer
  */
 public class GerritChangeListPanel extends JPanel implements Consumer<LoadChangesProxy> {
+    /**
+     * The next page is loaded as soon as less than this number of rows (or the visible row count, if larger) is
+     * left below the visible area.
+     */
+    private static final int MIN_PREFETCH_ROWS = 10;
+    private static final int ENRICHMENT_BATCH_SIZE = 25;
+
     private final SelectedRevisions selectedRevisions;
     private final GerritSelectRevisionInfoColumn selectRevisionInfoColumn;
     private final GerritSettings gerritSettings;
     private final ShowSettingsUtil showSettingsUtil;
+    private final GerritUtil gerritUtil;
+    private final ChangesPrefetcher changesPrefetcher;
 
     private final List<ChangeInfo> changes;
+    private final Set<String> availableLabels = Sets.newTreeSet();
     private final TableView<ChangeInfo> table;
     private LoadChangesProxy loadChangesProxy = null;
+    /**
+     * Rows for which revisions, actions and permitted labels are loaded (or being loaded); see
+     * {@link GerritUtil#getEnrichedChanges}. Identity based: rows replaced by a refresh need to be enriched again.
+     */
+    private final Set<ChangeInfo> enrichedChanges = Collections.newSetFromMap(new IdentityHashMap<ChangeInfo, Boolean>());
+    /**
+     * Rows which have been requested again because they were missing in the response (only retried once).
+     */
+    private final Set<ChangeInfo> retriedEnrichments = Collections.newSetFromMap(new IdentityHashMap<ChangeInfo, Boolean>());
 
     private Project project;
 
-    private volatile boolean loadingMoreChanges = false;
     private final JScrollPane scrollPane;
 
     @Inject
     public GerritChangeListPanel(SelectedRevisions selectedRevisions,
                                  GerritSelectRevisionInfoColumn selectRevisionInfoColumn,
                                  GerritSettings gerritSettings,
-                                 ShowSettingsUtil showSettingsUtil) {
+                                 ShowSettingsUtil showSettingsUtil,
+                                 GerritUtil gerritUtil,
+                                 ChangesPrefetcher changesPrefetcher) {
         this.selectedRevisions = selectedRevisions;
         this.selectRevisionInfoColumn = selectRevisionInfoColumn;
         this.gerritSettings = gerritSettings;
         this.showSettingsUtil = showSettingsUtil;
+        this.gerritUtil = gerritUtil;
+        this.changesPrefetcher = changesPrefetcher;
         this.changes = Lists.newArrayList();
 
         this.table = new TableView<ChangeInfo>();
         table.getSelectionModel().setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getSelectionModel().addListSelectionListener(new ListSelectionListener() {
+            @Override
+            public void valueChanged(ListSelectionEvent e) {
+                ChangeInfo selectedChange = table.getSelectedObject();
+                if (selectedChange != null && !e.getValueIsAdjusting()) {
+                    enrichChanges(Collections.singletonList(selectedChange), GerritRequestExecutor.Priority.HIGH);
+                }
+            }
+        });
 
         PopupHandler.installPopupHandler(table, "Gerrit.ListPopup", ActionPlaces.UNKNOWN);
 
@@ -113,22 +154,15 @@ public class GerritChangeListPanel extends JPanel implements Consumer<LoadChange
         scrollPane.getVerticalScrollBar().addAdjustmentListener(new AdjustmentListener() {
             @Override
             public void adjustmentValueChanged(AdjustmentEvent e) {
-                if (!loadingMoreChanges && loadChangesProxy != null) {
-                    loadingMoreChanges = true;
-                    try {
-                        int lowerEnd = e.getAdjustable().getVisibleAmount() + e.getAdjustable().getValue();
-                        if (lowerEnd == e.getAdjustable().getMaximum()) {
-                            loadChangesProxy.getNextPage(new Consumer<List<ChangeInfo>>() {
-                                @Override
-                                public void consume(List<ChangeInfo> changeInfos) {
-                                    addChanges(changeInfos);
-                                }
-                            });
-                        }
-                    } finally {
-                        loadingMoreChanges = false;
-                    }
-                }
+                loadMoreChangesIfRequired();
+                enrichVisibleChanges();
+            }
+        });
+        scrollPane.getViewport().addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                loadMoreChangesIfRequired();
+                enrichVisibleChanges();
             }
         });
         add(scrollPane);
@@ -139,17 +173,174 @@ public class GerritChangeListPanel extends JPanel implements Consumer<LoadChange
     }
 
     @Override
-    public void consume(LoadChangesProxy proxy) {
+    public void consume(final LoadChangesProxy proxy) {
+        if (loadChangesProxy != null) {
+            loadChangesProxy.cancel();
+        }
         loadChangesProxy = proxy;
+        proxy.setVisibleRows(getVisibleRowCount());
+        proxy.getNextPage(new Consumer<List<ChangeInfo>>() {
+            private boolean firstPart = true;
+
+            @Override
+            public void consume(List<ChangeInfo> changeInfos) {
+                if (proxy != loadChangesProxy) {
+                    return;
+                }
+                // the first page is streamed: replace the rows with its first part, append the following parts
+                if (firstPart) {
+                    firstPart = false;
+                    setChanges(changeInfos);
+                    setupEmptyTableHint();
+                    prefetchChanges();
+                } else {
+                    addChanges(changeInfos);
+                }
+                loadMoreChangesIfRequired();
+            }
+        });
+    }
+
+    /**
+     * Starts loading the next page as soon as the visible area comes close to the end of the list (and not only when
+     * the end has been reached), so that the user usually does not need to wait for more changes.
+     */
+    private void loadMoreChangesIfRequired() {
+        final LoadChangesProxy proxy = loadChangesProxy;
+        if (proxy == null || !proxy.hasMore()) {
+            return;
+        }
+        int visibleRowCount = getVisibleRowCount();
+        proxy.setVisibleRows(visibleRowCount);
+        Rectangle visibleRect = table.getVisibleRect();
+        int lastVisibleRow = table.rowAtPoint(new Point(0, visibleRect.y + visibleRect.height - 1));
+        if (lastVisibleRow < 0) {
+            lastVisibleRow = table.getRowCount() - 1; // list is shorter than the visible area
+        }
+        int remainingRows = table.getRowCount() - 1 - lastVisibleRow;
+        if (remainingRows > Math.max(MIN_PREFETCH_ROWS, visibleRowCount)) {
+            return;
+        }
         proxy.getNextPage(new Consumer<List<ChangeInfo>>() {
             @Override
             public void consume(List<ChangeInfo> changeInfos) {
-                setChanges(changeInfos);
-                setupEmptyTableHint();
+                if (proxy != loadChangesProxy) {
+                    return;
+                }
+                addChanges(changeInfos);
+                loadMoreChangesIfRequired();
             }
         });
     }
 
+    /**
+     * List rows only contain what the columns render; revisions, actions and permitted labels are loaded in batches
+     * for the rows which become visible.
+     */
+    private void enrichVisibleChanges() {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Rectangle visibleRect = table.getVisibleRect();
+        int firstVisibleRow = Math.max(0, table.rowAtPoint(new Point(0, visibleRect.y)));
+        int lastVisibleRow = table.rowAtPoint(new Point(0, visibleRect.y + visibleRect.height - 1));
+        if (lastVisibleRow < 0) {
+            lastVisibleRow = Math.min(changes.size(), firstVisibleRow + getVisibleRowCount()) - 1;
+        }
+        if (firstVisibleRow > lastVisibleRow) {
+            return;
+        }
+        enrichChanges(Lists.newArrayList(changes.subList(firstVisibleRow, lastVisibleRow + 1)),
+            GerritRequestExecutor.Priority.NORMAL);
+    }
+
+    private void enrichChanges(List<ChangeInfo> candidates, final GerritRequestExecutor.Priority priority) {
+        final List<ChangeInfo> rows = Lists.newArrayList();
+        for (ChangeInfo candidate : candidates) {
+            if (enrichedChanges.add(candidate)) {
+                rows.add(candidate);
+            }
+        }
+        for (List<ChangeInfo> batch : Lists.partition(rows, ENRICHMENT_BATCH_SIZE)) {
+            final List<ChangeInfo> requestedRows = Lists.newArrayList(batch);
+            List<Integer> changeNumbers = Lists.newArrayList();
+            for (ChangeInfo row : requestedRows) {
+                changeNumbers.add(row._number);
+            }
+            gerritUtil.getEnrichedChanges(changeNumbers, project, priority, new Consumer<List<ChangeInfo>>() {
+                @Override
+                public void consume(List<ChangeInfo> enrichedChangeInfos) {
+                    applyEnrichedChanges(requestedRows, enrichedChangeInfos, priority);
+                }
+            }, new Runnable() {
+                @Override
+                public void run() {
+                    // failed or cancelled: requested again once the rows are visible or selected again
+                    for (ChangeInfo row : requestedRows) {
+                        enrichedChanges.remove(row);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Copies the on demand data into the listed rows (rows are not replaced to keep selection and editors intact).
+     * Requested rows which are missing in the response are requested once more.
+     */
+    private void applyEnrichedChanges(List<ChangeInfo> requestedRows,
+                                      List<ChangeInfo> enrichedChangeInfos,
+                                      GerritRequestExecutor.Priority priority) {
+        Set<ChangeInfo> missingRows = Collections.newSetFromMap(new IdentityHashMap<ChangeInfo, Boolean>());
+        missingRows.addAll(requestedRows);
+        for (ChangeInfo enrichedChangeInfo : enrichedChangeInfos) {
+            int index = indexOf(enrichedChangeInfo.id);
+            if (index < 0) {
+                continue;
+            }
+            ChangeInfo row = changes.get(index);
+            ChangesListOptions.copyEnrichedData(enrichedChangeInfo, row);
+            enrichedChanges.add(row);
+            missingRows.remove(row);
+        }
+        table.repaint();
+
+        List<ChangeInfo> retryRows = Lists.newArrayList();
+        for (ChangeInfo row : missingRows) {
+            int index = indexOf(row.id);
+            boolean listed = index >= 0 && changes.get(index) == row;
+            if (listed && retriedEnrichments.add(row)) {
+                enrichedChanges.remove(row);
+                retryRows.add(row);
+            }
+        }
+        if (!retryRows.isEmpty()) {
+            enrichChanges(retryRows, priority);
+        }
+    }
+
+    /**
+     * Starred changes and the changes from the top of the visible area are fetched in the background.
+     */
+    private void prefetchChanges() {
+        List<ChangeInfo> candidates = Lists.newArrayList();
+        for (ChangeInfo change : changes) {
+            if (change.starred != null && change.starred) {
+                candidates.add(change);
+            }
+        }
+        int firstVisibleRow = Math.max(0, table.rowAtPoint(new Point(0, table.getVisibleRect().y)));
+        if (firstVisibleRow < changes.size()) {
+            candidates.addAll(changes.subList(firstVisibleRow, changes.size()));
+        }
+        changesPrefetcher.prefetch(project, candidates);
+    }
+
+    private int getVisibleRowCount() {
+        int rowHeight = Math.max(1, table.getRowHeight());
+        return Math.max(1, scrollPane.getViewport().getExtentSize().height / rowHeight);
+    }
+
     private void setupEmptyTableHint() {
         StatusText emptyText = table.getEmptyText();
         emptyText.clear();
@@ -203,15 +394,111 @@ public class GerritChangeListPanel extends JPanel implements Consumer<LoadChange
     public void setChanges(@NotNull List<ChangeInfo> changes) {
         this.changes.clear();
         this.changes.addAll(changes);
+        enrichedChanges.clear();
+        retriedEnrichments.clear();
         initModel();
         table.repaint();
         selectedRevisions.clear();
+        enrichVisibleChanges();
     }
 
     public void addChanges(@NotNull List<ChangeInfo> changes) {
-        this.changes.addAll(changes);
-        // did not find another way to update the scrollbar after adding more changes...
-        scrollPane.getVerticalScrollBar().setValue(scrollPane.getVerticalScrollBar().getValue() - 1);
+        List<ChangeInfo> newChanges = Lists.newArrayList();
+        boolean newLabels = false;
+        for (ChangeInfo change : changes) {
+            // rows might have been added by a delta refresh in the meantime
+            if (indexOf(change.id) < 0) {
+                newChanges.add(change);
+                newLabels |= hasNewLabels(change);
+            }
+        }
+        if (newChanges.isEmpty()) {
+            return;
+        }
+        table.getListTableModel().addRows(newChanges);
+        if (newLabels) {
+            initModelKeepingSelection();
+        }
+        enrichVisibleChanges();
+    }
+
+    /**
+     * Applies a delta refresh row by row: updated changes move to the top (the list is ordered by last update),
+     * new changes are inserted there and changes which do not match the query anymore are removed.
+     * The selection is kept if the selected change is still listed.
+     */
+    public void mergeChanges(@NotNull List<ChangeInfo> updatedChanges, @NotNull Set<String> removedChangeIds) {
+        ListTableModel<ChangeInfo> model = table.getListTableModel();
+        ChangeInfo selectedChange = table.getSelectedObject();
+        boolean newLabels = false;
+        for (String removedChangeId : removedChangeIds) {
+            int index = indexOf(removedChangeId);
+            if (index >= 0) {
+                model.removeRow(index);
+            }
+        }
+        for (ChangeInfo change : Lists.reverse(updatedChanges)) {
+            int index = indexOf(change.id);
+            if (index >= 0) {
+                if (Objects.equal(changes.get(index).updated, change.updated)) {
+                    continue;
+                }
+                model.removeRow(index);
+            }
+            model.insertRow(0, change);
+            newLabels |= hasNewLabels(change);
+        }
+        if (newLabels) {
+            initModel();
+        }
+        restoreSelection(selectedChange);
+        enrichVisibleChanges();
+        prefetchChanges();
+    }
+
+    private boolean hasNewLabels(ChangeInfo change) {
+        return change.labels != null && !availableLabels.containsAll(change.labels.keySet());
+    }
+
+    /**
+     * Label columns are derived from the listed changes; rows passed on later (streamed pages) might bring new ones.
+     */
+    private void initModelKeepingSelection() {
+        ChangeInfo selectedChange = table.getSelectedObject();
+        initModel();
+        restoreSelection(selectedChange);
+    }
+
+    private void restoreSelection(@Nullable ChangeInfo selectedChange) {
+        if (selectedChange != null) {
+            int index = indexOf(selectedChange.id);
+            if (index >= 0 && table.getSelectedRow() != index) {
+                table.getSelectionModel().setSelectionInterval(index, index);
+            }
+        }
+    }
+
+    /**
+     * @return the most recent update timestamp of all listed changes; null if there are no changes listed
+     */
+    @Nullable
+    public Timestamp getLatestUpdate() {
+        Timestamp latestUpdate = null;
+        for (ChangeInfo change : changes) {
+            if (change.updated != null && (latestUpdate == null || change.updated.after(latestUpdate))) {
+                latestUpdate = change.updated;
+            }
+        }
+        return latestUpdate;
+    }
+
+    private int indexOf(String changeId) {
+        for (int i = 0; i < changes.size(); i++) {
+            if (changes.get(i).id.equals(changeId)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     private void initModel() {
@@ -233,7 +520,7 @@ public class GerritChangeListPanel extends JPanel implements Consumer<LoadChange
         ItemAndWidth projectName = new ItemAndWidth("", 0);
         ItemAndWidth branch = new ItemAndWidth("", 0);
         ItemAndWidth time = new ItemAndWidth("", 0);
-        Set<String> availableLabels = Sets.newTreeSet();
+        availableLabels.clear();
         for (ChangeInfo change : changes) {
             number = getMax(number, getNumber(change));
             hash = getMax(hash, getHash(change));
@@ -38,6 +38,9 @@ public interface GerritChangeNodeDecorator {
 
     /**
      * This method is called, when a new change is selected in the changes list panel
+     *
+     * @param refreshCallback decorators which load their data asynchronously call this callback (on the EDT) as soon
+     *                        as new data is available, so that the nodes get decorated again
      */
-    void onChangeSelected(Project project, ChangeInfo selectedChange);
+    void onChangeSelected(Project project, ChangeInfo selectedChange, Runnable refreshCallback);
 }
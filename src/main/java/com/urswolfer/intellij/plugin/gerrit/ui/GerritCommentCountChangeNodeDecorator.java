@@ -18,8 +18,6 @@ package com.urswolfer.intellij.plugin.gerrit.ui;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
 import com.google.common.collect.Lists;
 import com.google.gerrit.extensions.common.ChangeInfo;
 import com.google.gerrit.extensions.common.CommentInfo;
@@ -31,18 +29,29 @@ import com.intellij.openapi.vcs.changes.Change;
 import com.intellij.openapi.vcs.changes.ContentRevision;
 import com.intellij.ui.SimpleColoredComponent;
 import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.util.Consumer;
 import com.urswolfer.gerrit.client.rest.GerritRestApi;
 import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
 import com.urswolfer.intellij.plugin.gerrit.SelectedRevisions;
+import com.urswolfer.intellij.plugin.gerrit.rest.CommentsCache;
+import com.urswolfer.intellij.plugin.gerrit.rest.GerritRequestExecutor;
 import com.urswolfer.intellij.plugin.gerrit.util.PathUtils;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
+ * Shows the number of comments and drafts and the reviewed flag next to the files of the selected change.
+ *
+ * The data is loaded in background (three parallel requests) as soon as a change is selected; the renderer never
+ * blocks. Nodes show a placeholder until all data is available, then the tree gets repainted.
+ *
  * @author Thomas Forrer
  */
 public class GerritCommentCountChangeNodeDecorator implements GerritChangeNodeDecorator {
     private static final Joiner SUFFIX_JOINER = Joiner.on(", ").skipNulls();
+    private static final String LOADING_SUFFIX = " (loading...)";
 
     @Inject
     private GerritRestApi gerritApi;
@@ -51,14 +60,18 @@ public class GerritCommentCountChangeNodeDecorator implements GerritChangeNodeDe
     @Inject
     private GerritSettings gerritSettings;
     @Inject
+    private GerritRequestExecutor requestExecutor;
+    @Inject
+    private CommentsCache commentsCache;
+    @Inject
     private Logger log;
 
     private final SelectedRevisions selectedRevisions;
 
+    private Project project;
     private ChangeInfo selectedChange;
-    private Supplier<Map<String, List<CommentInfo>>> comments = setupCommentsSupplier();
-    private Supplier<Map<String, List<CommentInfo>>> drafts = setupDraftsSupplier();
-    private Supplier<Set<String>> reviewed = setupReviewedSupplier();
+    private Runnable refreshCallback;
+    private DecorationData data;
 
     @Inject
     public GerritCommentCountChangeNodeDecorator(SelectedRevisions selectedRevisions) {
@@ -67,22 +80,20 @@ public class GerritCommentCountChangeNodeDecorator implements GerritChangeNodeDe
             @Override
             public void update(Observable o, Object arg) {
                 if (arg instanceof String && selectedChange != null && selectedChange.id.equals(arg)) {
-                    refreshSuppliers();
+                    loadData();
                 }
             }
         });
     }
 
-    private void refreshSuppliers() {
-        comments = setupCommentsSupplier();
-        drafts = setupDraftsSupplier();
-        reviewed = setupReviewedSupplier();
-    }
-
     @Override
     public void decorate(Project project, Change change, SimpleColoredComponent component, ChangeInfo selectedChange) {
         String affectedFilePath = getAffectedFilePath(change);
         if (affectedFilePath != null) {
+            if (data == null || !data.isComplete()) {
+                component.append(LOADING_SUFFIX, SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
+                return;
+            }
             String text = getNodeSuffix(project, affectedFilePath);
             if (!Strings.isNullOrEmpty(text)) {
                 component.append(String.format(" (%s)", text), SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
@@ -92,9 +103,11 @@ public class GerritCommentCountChangeNodeDecorator implements GerritChangeNodeDe
     }
 
     @Override
-    public void onChangeSelected(Project project, ChangeInfo selectedChange) {
+    public void onChangeSelected(Project project, ChangeInfo selectedChange, Runnable refreshCallback) {
+        this.project = project;
         this.selectedChange = selectedChange;
-        refreshSuppliers();
+        this.refreshCallback = refreshCallback;
+        loadData();
     }
 
     private String getAffectedFilePath(Change change) {
@@ -114,19 +127,17 @@ public class GerritCommentCountChangeNodeDecorator implements GerritChangeNodeDe
         fileName = PathUtils.ensureSlashSeparators(fileName);
         List<String> parts = Lists.newArrayList();
 
-        Map<String, List<CommentInfo>> commentsMap = comments.get();
-        List<CommentInfo> commentsForFile = commentsMap.get(fileName);
+        List<CommentInfo> commentsForFile = data.comments.get(fileName);
         if (commentsForFile != null) {
             parts.add(String.format("%s comment%s", commentsForFile.size(), commentsForFile.size() == 1 ? "" : "s"));
         }
 
-        Map<String, List<CommentInfo>> draftsMap = drafts.get();
-        List<CommentInfo> draftsForFile = draftsMap.get(fileName);
+        List<CommentInfo> draftsForFile = data.drafts.get(fileName);
         if (draftsForFile != null) {
             parts.add(String.format("%s draft%s", draftsForFile.size(), draftsForFile.size() == 1 ? "" : "s"));
         }
 
-        if (reviewed.get().contains(fileName)) {
+        if (data.reviewed.contains(fileName)) {
             parts.add("reviewed");
         }
 
@@ -137,64 +148,149 @@ public class GerritCommentCountChangeNodeDecorator implements GerritChangeNodeDe
         return pathUtils.getRelativeOrAbsolutePath(project, absoluteFilePath, selectedChange.project);
     }
 
-    private Supplier<Map<String, List<CommentInfo>>> setupCommentsSupplier() {
-        return Suppliers.memoize(new Supplier<Map<String, List<CommentInfo>>>() {
-            @Override
-            public Map<String, List<CommentInfo>> get() {
-                try {
-                    return gerritApi.changes()
-                            .id(selectedChange.id)
-                            .revision(getSelectedRevisionId())
-                            .comments();
-                } catch (RestApiException e) {
-                    log.warn(e);
-                    return Collections.emptyMap();
-                }
-            }
-        });
-    }
+    /**
+     * Cancels the requests for the previous selection (if still running) and starts loading comments, drafts and
+     * reviewed files of the selected revision in parallel. Must be called on the EDT.
+     */
+    private void loadData() {
+        if (data != null) {
+            data.cancel();
+        }
+        if (selectedChange == null) {
+            data = null;
+            return;
+        }
+        final ChangeInfo change = selectedChange;
+        final String revisionId = getSelectedRevisionId();
+        final DecorationData newData = new DecorationData();
+        data = newData;
 
-    private Supplier<Map<String, List<CommentInfo>>> setupDraftsSupplier() {
-        return Suppliers.memoize(new Supplier<Map<String, List<CommentInfo>>>() {
-            @Override
-            public Map<String, List<CommentInfo>> get() {
-                if (!gerritSettings.isLoginAndPasswordAvailable()) {
-                    return Collections.emptyMap();
+        final boolean loggedIn = gerritSettings.isLoginAndPasswordAvailable();
+        CommentsCache.RevisionComments cachedComments = loggedIn
+            ? commentsCache.get(gerritSettings.getHost(), change._number, revisionId, change.updated)
+            : null;
+        if (cachedComments != null) {
+            newData.comments = cachedComments.toMap(true, false);
+            newData.drafts = cachedComments.toMap(false, true);
+        } else {
+            submit(newData, new Callable<Map<String, List<CommentInfo>>>() {
+                @Override
+                public Map<String, List<CommentInfo>> call() throws Exception {
+                    return gerritApi.changes().id(change.id).revision(revisionId).comments();
                 }
-                try {
-                    return gerritApi.changes()
-                            .id(selectedChange.id)
-                            .revision(getSelectedRevisionId())
-                            .drafts();
-                } catch (RestApiException e) {
-                    log.warn(e);
-                    return Collections.emptyMap();
+            }, Collections.<String, List<CommentInfo>>emptyMap(), new Consumer<Map<String, List<CommentInfo>>>() {
+                @Override
+                public void consume(Map<String, List<CommentInfo>> result) {
+                    newData.comments = result;
+                    dataLoaded(newData, change, revisionId, loggedIn);
                 }
+            });
+            if (loggedIn) {
+                submit(newData, new Callable<Map<String, List<CommentInfo>>>() {
+                    @Override
+                    public Map<String, List<CommentInfo>> call() throws Exception {
+                        return gerritApi.changes().id(change.id).revision(revisionId).drafts();
+                    }
+                }, Collections.<String, List<CommentInfo>>emptyMap(), new Consumer<Map<String, List<CommentInfo>>>() {
+                    @Override
+                    public void consume(Map<String, List<CommentInfo>> result) {
+                        newData.drafts = result;
+                        dataLoaded(newData, change, revisionId, true);
+                    }
+                });
+            } else {
+                newData.drafts = Collections.emptyMap();
             }
-        });
+        }
+        if (loggedIn) {
+            submit(newData, new Callable<Set<String>>() {
+                @Override
+                public Set<String> call() throws Exception {
+                    return gerritApi.changes().id(change.id).revision(revisionId).reviewed();
+                }
+            }, Collections.<String>emptySet(), new Consumer<Set<String>>() {
+                @Override
+                public void consume(Set<String> result) {
+                    newData.reviewed = result;
+                    dataLoaded(newData, change, revisionId, false);
+                }
+            });
+        } else {
+            newData.reviewed = Collections.emptySet();
+        }
+        dataLoaded(newData, change, revisionId, false);
     }
 
-    private Supplier<Set<String>> setupReviewedSupplier() {
-        return Suppliers.memoize(new Supplier<Set<String>>() {
+    /**
+     * Failing or cancelled requests result in {@code fallback}, so that the placeholder does not stay forever; the
+     * target is marked as aborted then, so that the fallback does not get cached.
+     */
+    private <T> void submit(final DecorationData target, final Callable<T> request, final T fallback, final Consumer<T> consumer) {
+        Future<T> future = requestExecutor.submit(project, GerritRequestExecutor.Priority.NORMAL, new Callable<T>() {
             @Override
-            public Set<String> get() {
-                if (!gerritSettings.isLoginAndPasswordAvailable()) {
-                    return Collections.emptySet();
-                }
+            public T call() throws Exception {
                 try {
-                    return gerritApi.changes()
-                            .id(selectedChange.id)
-                            .revision(getSelectedRevisionId())
-                            .reviewed();
+                    return request.call();
                 } catch (RestApiException e) {
                     log.warn(e);
-                    return Collections.emptySet();
+                    target.aborted = true;
+                    return fallback;
                 }
             }
+        }, consumer, new Runnable() {
+            @Override
+            public void run() {
+                target.aborted = true;
+                consumer.consume(fallback);
+            }
         });
+        target.requests.add(future);
+    }
+
+    /**
+     * Called on the EDT whenever a part of the data is available. Repaints the tree once everything is loaded.
+     *
+     * @param storeComments whether comments and drafts have been loaded freshly and should be shared with the
+     *                      diff viewers
+     */
+    private void dataLoaded(DecorationData loadedData, ChangeInfo change, String revisionId, boolean storeComments) {
+        if (loadedData != data) {
+            return; // selection changed in between
+        }
+        if (storeComments && !loadedData.aborted && loadedData.comments != null && loadedData.drafts != null) {
+            commentsCache.put(gerritSettings.getHost(), change._number, revisionId,
+                new CommentsCache.RevisionComments(change.id, change.updated, loadedData.comments, loadedData.drafts));
+        }
+        if (loadedData.isComplete() && refreshCallback != null) {
+            refreshCallback.run();
+        }
     }
 
     private String getSelectedRevisionId() {
         return selectedRevisions.get(selectedChange);
     }
+
+    /**
+     * Data of one selection (change and revision). Only accessed on the EDT.
+     */
+    private static final class DecorationData {
+        private final List<Future<?>> requests = Lists.newArrayList();
+        private Map<String, List<CommentInfo>> comments;
+        private Map<String, List<CommentInfo>> drafts;
+        private Set<String> reviewed;
+        /**
+         * Some data could not be loaded (fallback values are shown); nothing must be cached.
+         */
+        private boolean aborted;
+
+        private boolean isComplete() {
+            return comments != null && drafts != null && reviewed != null;
+        }
+
+        private void cancel() {
+            for (Future<?> request : requests) {
+                request.cancel(true);
+            }
+        }
+    }
 }
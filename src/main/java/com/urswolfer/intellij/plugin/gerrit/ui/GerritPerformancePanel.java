@@ -0,0 +1,218 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.ui;
+
+import com.google.inject.Inject;
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.ActionToolbar;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.ide.CopyPasteManager;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.JBUI;
+import com.urswolfer.intellij.plugin.gerrit.rest.ChangeDetailsCache;
+import com.urswolfer.intellij.plugin.gerrit.rest.CommentsCache;
+import com.urswolfer.intellij.plugin.gerrit.rest.ConditionalRequestClientBuilderExtension;
+import com.urswolfer.intellij.plugin.gerrit.rest.ConnectionPoolClientBuilderExtension;
+import com.urswolfer.intellij.plugin.gerrit.rest.GerritRequestExecutor;
+import com.urswolfer.intellij.plugin.gerrit.rest.PerformanceReport;
+import com.urswolfer.intellij.plugin.gerrit.rest.RequestStatistics;
+import org.apache.http.pool.PoolStats;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * "Performance" tab of the Gerrit tool window: request statistics per endpoint, executor queue wait times and the
+ * state of connection pool and caches. The data can be exported as JSON (e.g. to attach it to an issue report).
+ *
+ * @author Urs Wolfer
+ */
+public class GerritPerformancePanel {
+    private static final int REFRESH_INTERVAL_MS = 2000;
+    private static final String[] COLUMNS = {
+        "Endpoint", "Requests", "Errors", "Retries", "Avg ms", "p50 ms", "p90 ms", "Max ms", "Avg size", "Total size"
+    };
+
+    @Inject
+    private RequestStatistics requestStatistics;
+    @Inject
+    private PerformanceReport performanceReport;
+    @Inject
+    private ConnectionPoolClientBuilderExtension connectionPoolClientBuilderExtension;
+    @Inject
+    private ConditionalRequestClientBuilderExtension conditionalRequestClientBuilderExtension;
+    @Inject
+    private ChangeDetailsCache changeDetailsCache;
+    @Inject
+    private CommentsCache commentsCache;
+
+    private final DefaultTableModel tableModel = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final JBLabel summaryLabel = new JBLabel();
+
+    public SimpleToolWindowPanel createContent(final Project project) {
+        SimpleToolWindowPanel panel = new SimpleToolWindowPanel(true, true) {
+            private final Timer timer = new Timer(REFRESH_INTERVAL_MS, new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    refresh();
+                }
+            });
+
+            @Override
+            public void addNotify() {
+                super.addNotify();
+                refresh();
+                timer.start();
+            }
+
+            @Override
+            public void removeNotify() {
+                timer.stop();
+                super.removeNotify();
+            }
+        };
+
+        DefaultActionGroup group = new DefaultActionGroup();
+        group.add(new DumbAwareAction("Refresh", "Refresh statistics", AllIcons.Actions.Refresh) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                refresh();
+            }
+        });
+        group.add(new DumbAwareAction("Reset", "Reset request statistics", AllIcons.Actions.GC) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                requestStatistics.reset();
+                refresh();
+            }
+        });
+        group.add(new DumbAwareAction("Copy as JSON", "Copy statistics as JSON to the clipboard", AllIcons.Actions.Copy) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                CopyPasteManager.getInstance().setContents(new StringSelection(performanceReport.toJson()));
+            }
+        });
+        group.add(new DumbAwareAction("Export as JSON...", "Save statistics as JSON file", AllIcons.ToolbarDecorator.Export) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                exportJson(project);
+            }
+        });
+        ActionToolbar toolbar = ActionManager.getInstance().createActionToolbar("Gerrit.Performance", group, true);
+        panel.setToolbar(toolbar.getComponent());
+
+        JBTable table = new JBTable(tableModel);
+        table.setStriped(true);
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(ScrollPaneFactory.createScrollPane(table), BorderLayout.CENTER);
+        summaryLabel.setBorder(JBUI.Borders.empty(4, 8));
+        content.add(summaryLabel, BorderLayout.SOUTH);
+        toolbar.setTargetComponent(content);
+        panel.setContent(content);
+        return panel;
+    }
+
+    private void refresh() {
+        tableModel.setRowCount(0);
+        for (Map.Entry<String, RequestStatistics.EndpointStatistics> entry
+            : requestStatistics.getEndpointStatistics().entrySet()) {
+            RequestStatistics.EndpointStatistics statistics = entry.getValue();
+            RequestStatistics.Histogram latency = statistics.getLatency();
+            tableModel.addRow(new Object[]{
+                entry.getKey(),
+                latency.getCount(),
+                statistics.getErrorCount(),
+                statistics.getRetries(),
+                latency.getAverageMs(),
+                latency.getPercentileMs(50),
+                latency.getPercentileMs(90),
+                latency.getMaxMs(),
+                StringUtil.formatFileSize(statistics.getAverageBytes()),
+                StringUtil.formatFileSize(statistics.getTotalBytes())
+            });
+        }
+        summaryLabel.setText(createSummary());
+    }
+
+    private String createSummary() {
+        StringBuilder summary = new StringBuilder("<html>Queue wait (avg / p90 / max ms):");
+        Map<GerritRequestExecutor.Priority, RequestStatistics.Histogram> queueWaits = requestStatistics.getQueueWaits();
+        if (queueWaits.isEmpty()) {
+            summary.append(" -");
+        }
+        for (Map.Entry<GerritRequestExecutor.Priority, RequestStatistics.Histogram> entry : queueWaits.entrySet()) {
+            RequestStatistics.Histogram histogram = entry.getValue();
+            summary.append(String.format(" %s %d / %d / %d;", entry.getKey().name().toLowerCase(),
+                histogram.getAverageMs(), histogram.getPercentileMs(90), histogram.getMaxMs()));
+        }
+        PoolStats poolStats = connectionPoolClientBuilderExtension.getPoolStats();
+        if (poolStats != null) {
+            summary.append(String.format("<br>Connections: %d leased, %d available, %d pending (max %d)",
+                poolStats.getLeased(), poolStats.getAvailable(), poolStats.getPending(), poolStats.getMax()));
+        }
+        summary.append(String.format("<br>Change details cache: %d entries, %d hits, %d misses"
+                + "; comments cache: %d entries; ETag cache: %d entries, %d not modified, %d full responses</html>",
+            changeDetailsCache.size(), changeDetailsCache.getHitCount(), changeDetailsCache.getMissCount(),
+            commentsCache.size(),
+            conditionalRequestClientBuilderExtension.size(),
+            conditionalRequestClientBuilderExtension.getNotModifiedCount(),
+            conditionalRequestClientBuilderExtension.getFullResponseCount()));
+        return summary.toString();
+    }
+
+    private void exportJson(Project project) {
+        FileSaverDescriptor descriptor = new FileSaverDescriptor(
+            "Export Gerrit Performance Data", "Save request statistics as JSON file", "json");
+        VirtualFileWrapper fileWrapper = FileChooserFactory.getInstance()
+            .createSaveFileDialog(descriptor, project)
+            .save(null, "gerrit-performance.json");
+        if (fileWrapper == null) {
+            return;
+        }
+        try {
+            Files.write(fileWrapper.getFile().toPath(), performanceReport.toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Messages.showErrorDialog(project, e.getMessage(), "Failed to Export Gerrit Performance Data");
+        }
+    }
+}
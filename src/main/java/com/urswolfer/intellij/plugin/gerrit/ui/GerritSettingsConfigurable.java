@@ -27,6 +27,8 @@ import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vcs.VcsConfigurableProvider;
 import com.urswolfer.intellij.plugin.gerrit.GerritModule;
 import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
+import com.urswolfer.intellij.plugin.gerrit.rest.ChangeEventStream;
+import com.urswolfer.intellij.plugin.gerrit.rest.ServerCapabilitiesProbe;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -47,6 +49,10 @@ public class GerritSettingsConfigurable implements SearchableConfigurable, VcsCo
     private GerritSettings gerritSettings;
     @Inject
     private GerritUpdatesNotificationComponent gerritUpdatesNotificationComponent;
+    @Inject
+    private ChangeEventStream changeEventStream;
+    @Inject
+    private ServerCapabilitiesProbe serverCapabilitiesProbe;
 
     @NotNull
     public String getDisplayName() {
@@ -71,8 +77,10 @@ public class GerritSettingsConfigurable implements SearchableConfigurable, VcsCo
                 !Comparing.equal(gerritSettings.getHost(), settingsPane.getHost(), true) ||
                 !Comparing.equal(gerritSettings.getAutomaticRefresh(), settingsPane.getAutomaticRefresh()) ||
                 !Comparing.equal(gerritSettings.getListAllChanges(), settingsPane.getListAllChanges()) ||
+                !Comparing.equal(gerritSettings.getParallelPageLoading(), settingsPane.getParallelPageLoading()) ||
                 !Comparing.equal(gerritSettings.getRefreshTimeout(), settingsPane.getRefreshTimeout()) ||
                 !Comparing.equal(gerritSettings.getReviewNotifications(), settingsPane.getReviewNotifications()) ||
+                !Comparing.equal(gerritSettings.getEventStream(), settingsPane.getEventStream()) ||
                 !Comparing.equal(gerritSettings.getPushToGerrit(), settingsPane.getPushToGerrit()) ||
                 !Comparing.equal(gerritSettings.getShowChangeNumberColumn(), settingsPane.getShowChangeNumberColumn()) ||
                 !Comparing.equal(gerritSettings.getShowChangeIdColumn(), settingsPane.getShowChangeIdColumn()) ||
@@ -94,9 +102,11 @@ public class GerritSettingsConfigurable implements SearchableConfigurable, VcsCo
             }
             gerritSettings.setHost(settingsPane.getHost());
             gerritSettings.setListAllChanges(settingsPane.getListAllChanges());
+            gerritSettings.setParallelPageLoading(settingsPane.getParallelPageLoading());
             gerritSettings.setAutomaticRefresh(settingsPane.getAutomaticRefresh());
             gerritSettings.setRefreshTimeout(settingsPane.getRefreshTimeout());
             gerritSettings.setReviewNotifications(settingsPane.getReviewNotifications());
+            gerritSettings.setEventStream(settingsPane.getEventStream());
             gerritSettings.setPushToGerrit(settingsPane.getPushToGerrit());
             gerritSettings.setShowChangeNumberColumn(settingsPane.getShowChangeNumberColumn());
             gerritSettings.setShowChangeIdColumn(settingsPane.getShowChangeIdColumn());
@@ -104,7 +114,10 @@ public class GerritSettingsConfigurable implements SearchableConfigurable, VcsCo
             gerritSettings.setShowProjectColumn(settingsPane.getShowProjectColumn());
             gerritSettings.setCloneBaseUrl(settingsPane.getCloneBaseUrl());
 
+            // the server might report another version (or allow more) with other credentials
+            serverCapabilitiesProbe.invalidate();
             gerritUpdatesNotificationComponent.handleConfigurationChange();
+            changeEventStream.handleConfigurationChange();
         }
     }
 
@@ -116,9 +129,11 @@ public class GerritSettingsConfigurable implements SearchableConfigurable, VcsCo
             settingsPane.resetPasswordModification();
             settingsPane.setHost(gerritSettings.getHost());
             settingsPane.setListAllChanges(gerritSettings.getListAllChanges());
+            settingsPane.setParallelPageLoading(gerritSettings.getParallelPageLoading());
             settingsPane.setAutomaticRefresh(gerritSettings.getAutomaticRefresh());
             settingsPane.setRefreshTimeout(gerritSettings.getRefreshTimeout());
             settingsPane.setReviewNotifications(gerritSettings.getReviewNotifications());
+            settingsPane.setEventStream(gerritSettings.getEventStream());
             settingsPane.setPushToGerrit(gerritSettings.getPushToGerrit());
             settingsPane.setShowChangeNumberColumn(gerritSettings.getShowChangeNumberColumn());
             settingsPane.setShowChangeIdColumn(gerritSettings.getShowChangeIdColumn());
@@ -33,8 +33,13 @@ import com.intellij.openapi.ui.SimpleToolWindowPanel;
 import com.intellij.openapi.vcs.changes.committed.CommittedChangesBrowser;
 import com.intellij.ui.JBSplitter;
 import com.intellij.ui.OnePixelSplitter;
+import com.intellij.util.Alarm;
 import com.intellij.util.Consumer;
 import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
+import com.urswolfer.intellij.plugin.gerrit.git.GerritProjectIndex;
+import com.urswolfer.intellij.plugin.gerrit.rest.ChangeEvent;
+import com.urswolfer.intellij.plugin.gerrit.rest.ChangeEventStream;
+import com.urswolfer.intellij.plugin.gerrit.rest.ChangesDelta;
 import com.urswolfer.intellij.plugin.gerrit.rest.GerritUtil;
 import com.urswolfer.intellij.plugin.gerrit.rest.LoadChangesProxy;
 import com.urswolfer.intellij.plugin.gerrit.ui.filter.ChangesFilter;
@@ -43,6 +48,7 @@ import git4idea.GitUtil;
 import git4idea.repo.GitRepository;
 
 import javax.swing.*;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
@@ -52,6 +58,8 @@ import java.util.Observer;
  * @author Konrad Dobrzynski
  */
 public class GerritToolWindow {
+    private static final int EVENT_RELOAD_DELAY_MS = 1000;
+
     @Inject
     private GerritUtil gerritUtil;
     @Inject
@@ -64,8 +72,16 @@ public class GerritToolWindow {
     private GerritChangesFilters changesFilters;
     @Inject
     private RepositoryChangesBrowserProvider repositoryChangesBrowserProvider;
+    @Inject
+    private ChangeEventStream changeEventStream;
+    @Inject
+    private GerritProjectIndex gerritProjectIndex;
 
     private GerritChangeDetailsPanel detailsPanel;
+    /**
+     * Query of the last complete reload of the changes list.
+     */
+    private String loadedQuery;
 
     public SimpleToolWindowPanel createToolWindowContent(final Project project) {
         changeListPanel.setProject(project);
@@ -105,6 +121,7 @@ public class GerritToolWindow {
         }
 
         registerVcsChangeListener(project);
+        registerChangeEventListener(project);
 
         changeListPanel.showSetupHintWhenRequired(project);
 
@@ -121,8 +138,35 @@ public class GerritToolWindow {
         project.getMessageBus().connect().subscribe(VcsRepositoryManager.VCS_REPOSITORY_MAPPING_UPDATED, vcsListener);
     }
 
+    /**
+     * Merges the changes updated on the server into the list shortly after change events of the listed projects.
+     */
+    private void registerChangeEventListener(final Project project) {
+        final Alarm alarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, project);
+        changeEventStream.addListener(new Consumer<ChangeEvent>() {
+            @Override
+            public void consume(ChangeEvent event) {
+                if (loadedQuery == null) {
+                    return; // nothing loaded yet
+                }
+                if (!gerritSettings.getListAllChanges()
+                    && !gerritProjectIndex.getProjectNames(project).contains(event.getProject())) {
+                    return;
+                }
+                if (alarm.isEmpty()) { // further events until then are covered by the same reload
+                    alarm.addRequest(new Runnable() {
+                        @Override
+                        public void run() {
+                            reloadChanges(project, false);
+                        }
+                    }, EVENT_RELOAD_DELAY_MS);
+                }
+            }
+        }, project);
+    }
+
     private void changeSelected(ChangeInfo changeInfo, final Project project) {
-        gerritUtil.getChangeDetails(changeInfo._number, project, new Consumer<ChangeInfo>() {
+        gerritUtil.getChangeDetails(changeInfo, project, new Consumer<ChangeInfo>() {
             @Override
             public void consume(ChangeInfo changeDetails) {
                 detailsPanel.setData(changeDetails);
@@ -130,11 +174,17 @@ public class GerritToolWindow {
         });
     }
 
+    /**
+     * Reloads the changes list completely when the query has changed since the last reload; otherwise only the
+     * changes updated in the meantime are loaded and merged into the list.
+     */
     public void reloadChanges(final Project project, boolean requestSettingsIfNonExistent) {
         getChanges(project, requestSettingsIfNonExistent, changeListPanel);
     }
 
-    private void getChanges(Project project, boolean requestSettingsIfNonExistent, Consumer<LoadChangesProxy> consumer) {
+    private void getChanges(final Project project,
+                            boolean requestSettingsIfNonExistent,
+                            final Consumer<LoadChangesProxy> consumer) {
         String apiUrl = gerritSettings.getHost();
         if (Strings.isNullOrEmpty(apiUrl)) {
             if (requestSettingsIfNonExistent) {
@@ -147,7 +197,35 @@ public class GerritToolWindow {
                 return;
             }
         }
-        gerritUtil.getChangesForProject(changesFilters.getQuery(), project, consumer);
+        String filterQuery = changesFilters.getQuery();
+        String scopeQuery = gerritUtil.getProjectScopeQuery(project);
+        final String query = GerritUtil.joinQueries(filterQuery, scopeQuery);
+        if (gerritUtil.isShardingRequired(query)) {
+            // delta queries would be too long as well
+            loadedQuery = query;
+            gerritUtil.getChangesSharded(filterQuery, project, consumer);
+            return;
+        }
+        Timestamp latestUpdate = changeListPanel.getLatestUpdate();
+        if (query.equals(loadedQuery) && latestUpdate != null) {
+            gerritUtil.getChangesDelta(query, scopeQuery, latestUpdate, project, new Consumer<ChangesDelta>() {
+                @Override
+                public void consume(ChangesDelta delta) {
+                    if (!query.equals(loadedQuery)) {
+                        return; // a complete reload has been started in the meantime
+                    }
+                    if (delta == null || !delta.isComplete()) {
+                        loadedQuery = query;
+                        gerritUtil.getChanges(query, project, consumer);
+                    } else {
+                        changeListPanel.mergeChanges(delta.getUpdatedChanges(), delta.getRemovedChangeIds());
+                    }
+                }
+            });
+            return;
+        }
+        loadedQuery = query;
+        gerritUtil.getChanges(query, project, consumer);
     }
 
     private ActionToolbar createToolbar(final Project project) {
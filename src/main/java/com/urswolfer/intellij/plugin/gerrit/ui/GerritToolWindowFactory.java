@@ -40,8 +40,14 @@ public class GerritToolWindowFactory implements ToolWindowFactory, DumbAware {
         SimpleToolWindowPanel toolWindowContent = gerritToolWindow.createToolWindowContent(project);
 
         ContentManager contentManager = toolWindow.getContentManager();
-        Content content = ContentFactory.SERVICE.getInstance().createContent(toolWindowContent, "", false);
+        Content content = ContentFactory.SERVICE.getInstance().createContent(toolWindowContent, "Changes", false);
         contentManager.addContent(content);
+
+        GerritPerformancePanel performancePanel = GerritModule.getInstance(GerritPerformancePanel.class);
+        Content performanceContent = ContentFactory.SERVICE.getInstance()
+            .createContent(performancePanel.createContent(project), "Performance", false);
+        contentManager.addContent(performanceContent);
+
         contentManager.setSelectedContent(content);
     }
 
@@ -17,6 +17,8 @@
 package com.urswolfer.intellij.plugin.gerrit.ui;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.gerrit.extensions.common.ChangeInfo;
 import com.google.inject.Inject;
 import com.intellij.openapi.components.ProjectComponent;
@@ -24,43 +26,47 @@ import com.intellij.openapi.project.Project;
 import com.intellij.util.Consumer;
 import com.urswolfer.intellij.plugin.gerrit.GerritModule;
 import com.urswolfer.intellij.plugin.gerrit.GerritSettings;
-import com.urswolfer.intellij.plugin.gerrit.rest.GerritUtil;
+import com.urswolfer.intellij.plugin.gerrit.rest.ChangesPoller;
 import com.urswolfer.intellij.plugin.gerrit.util.NotificationBuilder;
 import com.urswolfer.intellij.plugin.gerrit.util.NotificationService;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 
 /**
+ * Notifies about changes waiting for the review of the current user. The query is polled once for all open projects
+ * by {@link ChangesPoller}; every project shows its own notification, listing the changes which are new or have been
+ * updated since the last notification (see {@link NotifiedChanges}).
+ *
  * @author Urs Wolfer
  */
 @SuppressWarnings("ComponentNotRegistered") // proxy class below is registered
-public class GerritUpdatesNotificationComponent implements ProjectComponent, Consumer<List<ChangeInfo>> {
+public class GerritUpdatesNotificationComponent implements ProjectComponent {
+    private static final String CHANGES_TO_REVIEW_QUERY = "is:open+reviewer:self";
+
     @Inject
-    private GerritUtil gerritUtil;
+    private ChangesPoller changesPoller;
     @Inject
     private GerritSettings gerritSettings;
     @Inject
     private NotificationService notificationService;
 
-    private Timer timer;
-    private Set<String> notifiedChanges = new HashSet<String>();
-    private Project project;
+    // guarded by this
+    private final Set<Project> projects = Sets.newHashSet();
 
-    @Override
-    public void projectOpened() {
-        handleNotification();
-        setupRefreshTask();
+    public void projectOpened(Project project) {
+        synchronized (this) {
+            projects.add(project);
+        }
+        subscribeIfEnabled(project);
     }
 
-    @Override
-    public void projectClosed() {
-        cancelPendingNotificationTasks();
-        notifiedChanges.clear();
+    public void projectClosed(Project project) {
+        changesPoller.unsubscribe(CHANGES_TO_REVIEW_QUERY, project);
+        synchronized (this) {
+            projects.remove(project);
+        }
     }
 
     @NotNull
@@ -70,108 +76,88 @@ public class GerritUpdatesNotificationComponent implements ProjectComponent, Con
     }
 
     public void handleConfigurationChange() {
-        cancelPendingNotificationTasks();
-        setupRefreshTask();
+        List<Project> projects;
+        synchronized (this) {
+            projects = Lists.newArrayList(this.projects);
+        }
+        changesPoller.reset();
+        for (Project project : projects) {
+            subscribeIfEnabled(project);
+        }
     }
 
     public void handleNotification() {
-        if (!gerritSettings.getReviewNotifications()) {
-            return;
-        }
+        changesPoller.poll();
+    }
 
-        if (Strings.isNullOrEmpty(gerritSettings.getHost())
+    private void subscribeIfEnabled(final Project project) {
+        if (!gerritSettings.getReviewNotifications()
+                || Strings.isNullOrEmpty(gerritSettings.getHost())
                 || Strings.isNullOrEmpty(gerritSettings.getLogin())) {
+            changesPoller.unsubscribe(CHANGES_TO_REVIEW_QUERY, project);
             return;
         }
-
-        gerritUtil.getChangesToReview(project, this);
+        changesPoller.subscribe(CHANGES_TO_REVIEW_QUERY, project, new Consumer<List<ChangeInfo>>() {
+            @Override
+            public void consume(List<ChangeInfo> changes) {
+                notifyChanges(project, changes);
+            }
+        });
     }
 
-    @Override
-    public void consume(List<ChangeInfo> changes) {
-        boolean newChange = false;
-        for (ChangeInfo change : changes) {
-            if (!notifiedChanges.contains(change.id)) {
-                newChange = true;
-                break;
+    private void notifyChanges(Project project, List<ChangeInfo> changes) {
+        synchronized (this) {
+            if (!projects.contains(project) || project.isDisposed()) {
+                return;
             }
         }
-        if (newChange) {
-            StringBuilder stringBuilder = new StringBuilder();
-            stringBuilder.append("<ul>");
-            for (ChangeInfo change : changes) {
-                stringBuilder
-                        .append("<li>")
-                        .append(!notifiedChanges.contains(change.changeId) ? "<strong>NEW: </strong>" : "")
-                        .append(change.project)
-                        .append(": ")
-                        .append(change.subject)
-                        .append(" (Owner: ").append(change.owner.name).append(')')
-                        .append("</li>");
-
-                notifiedChanges.add(change.id);
+        NotifiedChanges notifiedChanges = project.getService(NotifiedChanges.class);
+        StringBuilder stringBuilder = new StringBuilder();
+        for (ChangeInfo change : changes) {
+            NotifiedChanges.Status status = notifiedChanges.getStatus(change);
+            if (status == NotifiedChanges.Status.NOTIFIED) {
+                continue;
             }
-            stringBuilder.append("</ul>");
+            stringBuilder
+                    .append("<li>")
+                    .append(status == NotifiedChanges.Status.NEW ? "<strong>NEW: </strong>" : "<strong>UPDATED: </strong>")
+                    .append(change.project)
+                    .append(": ")
+                    .append(change.subject)
+                    .append(" (Owner: ").append(change.owner.name).append(')')
+                    .append("</li>");
+
+            notifiedChanges.setNotified(change);
+        }
+        if (stringBuilder.length() > 0) {
             NotificationBuilder notification = new NotificationBuilder(
                     project,
                     "Gerrit Changes waiting for my review",
-                    stringBuilder.toString()
+                    "<ul>" + stringBuilder + "</ul>"
             );
             notificationService.notifyInformation(notification);
         }
     }
 
-    private void cancelPendingNotificationTasks() {
-        if (timer != null) {
-            timer.cancel();
-            timer = null;
-        }
-    }
-
-    private void setupRefreshTask() {
-        long refreshTimeout = gerritSettings.getRefreshTimeout();
-        if (gerritSettings.getAutomaticRefresh() && refreshTimeout > 0) {
-            if (timer == null) {
-                timer = new Timer();
-            }
-            timer.schedule(new CheckReviewTask(), refreshTimeout * 60 * 1000);
-        }
-    }
-
-    public void setProject(Project project) {
-        this.project = project;
-    }
-
-    private class CheckReviewTask extends TimerTask {
-        @Override
-        public void run() {
-            handleNotification();
-
-            long refreshTimeout = gerritSettings.getRefreshTimeout();
-            if (gerritSettings.getAutomaticRefresh() && refreshTimeout > 0) {
-                timer.schedule(new CheckReviewTask(), refreshTimeout * 60 * 1000);
-            }
-        }
-    }
-
     @SuppressWarnings("UnusedDeclaration")
     private static class Proxy extends GerritUpdatesNotificationComponent {
 
         private final GerritUpdatesNotificationComponent delegate;
+        private final Project project;
 
         public Proxy(Project project) {
             delegate = GerritModule.getInstance(GerritUpdatesNotificationComponent.class);
-            delegate.setProject(project);
+            this.project = project;
         }
 
         @Override
         public void projectOpened() {
-            delegate.projectOpened();
+            delegate.projectOpened(project);
         }
 
         @Override
         public void projectClosed() {
-            delegate.projectClosed();
+            delegate.projectClosed(project);
         }
 
         @NotNull
@@ -179,10 +165,5 @@ public class GerritUpdatesNotificationComponent implements ProjectComponent, Con
         public String getComponentName() {
             return delegate.getComponentName();
         }
-
-        @Override
-        public void setProject(Project project) {
-            delegate.setProject(project);
-        }
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.urswolfer.intellij.plugin.gerrit.ui;
+
+import com.google.gerrit.extensions.common.ChangeInfo;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import org.jdom.Element;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Changes the user has been notified about (see {@link GerritUpdatesNotificationComponent}), with the last update
+ * which was notified; kept in the workspace file of the project so that pending reviews are not announced again after
+ * a restart. Only the {@link #MAX_ENTRIES} most recently seen changes are kept.
+ *
+ * @author Urs Wolfer
+ */
+@State(name = "GerritNotifiedChanges", storages = @Storage(StoragePathMacros.WORKSPACE_FILE))
+public class NotifiedChanges implements PersistentStateComponent<Element> {
+    static final int MAX_ENTRIES = 500;
+
+    private static final String NOTIFIED_CHANGES_TAG = "NotifiedChanges";
+    private static final String CHANGE_TAG = "Change";
+    private static final String ID = "Id";
+    private static final String UPDATED = "Updated";
+
+    // guarded by this; change id -> last notified update (ms), least recently seen first
+    private final Map<String, Long> changes = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public enum Status {
+        NEW, UPDATED, NOTIFIED
+    }
+
+    /**
+     * @return whether the user has been notified about the change in its current state (marks it as recently seen)
+     */
+    public synchronized Status getStatus(ChangeInfo change) {
+        Long notifiedUpdate = changes.get(change.id);
+        if (notifiedUpdate == null) {
+            return Status.NEW;
+        }
+        if (change.updated != null && change.updated.getTime() > notifiedUpdate) {
+            return Status.UPDATED;
+        }
+        return Status.NOTIFIED;
+    }
+
+    public synchronized void setNotified(ChangeInfo change) {
+        changes.put(change.id, change.updated != null ? change.updated.getTime() : 0);
+    }
+
+    public synchronized int size() {
+        return changes.size();
+    }
+
+    @Override
+    public synchronized Element getState() {
+        Element element = new Element(NOTIFIED_CHANGES_TAG);
+        for (Map.Entry<String, Long> entry : changes.entrySet()) {
+            Element change = new Element(CHANGE_TAG);
+            change.setAttribute(ID, entry.getKey());
+            change.setAttribute(UPDATED, Long.toString(entry.getValue()));
+            element.addContent(change);
+        }
+        return element;
+    }
+
+    @Override
+    public synchronized void loadState(@NotNull Element element) {
+        changes.clear();
+        for (Element change : element.getChildren(CHANGE_TAG)) {
+            String id = change.getAttributeValue(ID);
+            String updated = change.getAttributeValue(UPDATED);
+            if (id == null || updated == null) {
+                continue;
+            }
+            try {
+                changes.put(id, Long.parseLong(updated));
+            } catch (NumberFormatException e) {
+                // skip broken entry
+            }
+        }
+    }
+}
@@ -17,8 +17,8 @@
 package com.urswolfer.intellij.plugin.gerrit.ui;
 
 import com.google.common.base.Optional;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.gerrit.extensions.common.ChangeInfo;
 import com.google.gerrit.extensions.common.RevisionInfo;
 import com.google.inject.Inject;
@@ -40,6 +40,7 @@ import com.intellij.ui.IdeBorderFactory;
 import com.intellij.ui.SideBorder;
 import com.intellij.ui.SimpleColoredComponent;
 import com.intellij.ui.table.TableView;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.Consumer;
 import com.intellij.util.containers.ContainerUtil;
 import com.urswolfer.intellij.plugin.gerrit.SelectedRevisions;
@@ -48,6 +49,7 @@ import com.urswolfer.intellij.plugin.gerrit.git.RevisionFetcher;
 import com.urswolfer.intellij.plugin.gerrit.rest.GerritUtil;
 import com.urswolfer.intellij.plugin.gerrit.ui.changesbrowser.ChangesWithCommitMessageProvider;
 import com.urswolfer.intellij.plugin.gerrit.ui.changesbrowser.CommitDiffBuilder;
+import com.urswolfer.intellij.plugin.gerrit.ui.changesbrowser.CommitDiffCache;
 import com.urswolfer.intellij.plugin.gerrit.ui.changesbrowser.SelectBaseRevisionAction;
 import com.urswolfer.intellij.plugin.gerrit.util.GerritUserDataKeys;
 import com.urswolfer.intellij.plugin.gerrit.util.NotificationBuilder;
@@ -57,6 +59,7 @@ import git4idea.history.GitHistoryUtils;
 import git4idea.repo.GitRepository;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -82,6 +85,8 @@ public class RepositoryChangesBrowserProvider {
     private Set<GerritChangeNodeDecorator> changeNodeDecorators;
     @Inject
     private SelectedRevisions selectedRevisions;
+    @Inject
+    private CommitDiffCache commitDiffCache;
 
     private SelectBaseRevisionAction selectBaseRevisionAction;
 
@@ -143,15 +148,21 @@ public class RepositoryChangesBrowserProvider {
 
         protected void setSelectedChange(ChangeInfo changeInfo) {
             selectedChange = changeInfo;
-            gerritUtil.getChangeDetails(changeInfo._number, project, new Consumer<ChangeInfo>() {
+            gerritUtil.getChangeDetails(changeInfo, project, new Consumer<ChangeInfo>() {
                 @Override
                 public void consume(ChangeInfo changeDetails) {
                     if (selectedChange.id.equals(changeDetails.id)) {
                         selectedChange = changeDetails;
                         baseRevision = Optional.absent();
                         selectBaseRevisionAction.setSelectedChange(selectedChange);
+                        Runnable repaintViewer = new Runnable() {
+                            @Override
+                            public void run() {
+                                getViewer().repaint();
+                            }
+                        };
                         for (GerritChangeNodeDecorator decorator : changeNodeDecorators) {
-                            decorator.onChangeSelected(project, selectedChange);
+                            decorator.onChangeSelected(project, selectedChange, repaintViewer);
                         }
                         updateChangesBrowser();
                     }
@@ -172,6 +183,16 @@ public class RepositoryChangesBrowserProvider {
             Map<String, RevisionInfo> revisions = selectedChange.revisions;
             final String revisionId = selectedRevisions.get(selectedChange);
             RevisionInfo currentRevision = revisions.get(revisionId);
+
+            final String repositoryRoot = gitRepository.getRoot().getPath();
+            final String baseRevisionId = baseRevision.isPresent() ? baseRevision.get().first : null;
+            List<Change> cachedDiff = commitDiffCache.get(repositoryRoot, baseRevisionId, revisionId);
+            if (cachedDiff != null) {
+                getViewer().setEmptyText("No changes");
+                setChangesToDisplay(Lists.newArrayList(cachedDiff));
+                return;
+            }
+
             RevisionFetcher revisionFetcher = new RevisionFetcher(gerritUtil, gerritGitUtil, notificationService, project, gitRepository)
                 .addRevision(revisionId, currentRevision);
             if (baseRevision.isPresent()) {
@@ -183,12 +204,14 @@ public class RepositoryChangesBrowserProvider {
                     final Collection<Change> totalDiff;
                     try {
                         VirtualFile gitRepositoryRoot = gitRepository.getRoot();
-                        CommitDiffBuilder.ChangesProvider changesProvider = new ChangesWithCommitMessageProvider();
-                        GitCommit currentCommit = getCommit(gitRepositoryRoot, revisionId);
-                        if (baseRevision.isPresent()) {
-                            GitCommit baseCommit = getCommit(gitRepositoryRoot, baseRevision.get().first);
-                            totalDiff = new CommitDiffBuilder(project, gitRepositoryRoot, baseCommit, currentCommit)
-                                .withChangesProvider(changesProvider).getDiff();
+                        ChangesWithCommitMessageProvider changesProvider = new ChangesWithCommitMessageProvider();
+                        Map<String, GitCommit> commits = baseRevisionId != null
+                            ? getCommits(gitRepositoryRoot, revisionId, baseRevisionId)
+                            : getCommits(gitRepositoryRoot, revisionId);
+                        GitCommit currentCommit = getCommit(commits, revisionId);
+                        if (baseRevisionId != null) {
+                            GitCommit baseCommit = getCommit(commits, baseRevisionId);
+                            totalDiff = new CommitDiffBuilder(project, gitRepositoryRoot, baseCommit, currentCommit).getDiff();
                         } else {
                             totalDiff = changesProvider.provide(currentCommit);
                         }
@@ -202,6 +225,7 @@ public class RepositoryChangesBrowserProvider {
                         notificationService.notifyError(notification);
                         return null;
                     }
+                    commitDiffCache.put(repositoryRoot, baseRevisionId, revisionId, totalDiff);
 
                     ApplicationManager.getApplication().invokeLater(new Runnable() {
                         @Override
@@ -215,11 +239,26 @@ public class RepositoryChangesBrowserProvider {
             });
         }
 
-        private GitCommit getCommit(VirtualFile gitRepositoryRoot, String revisionId) throws VcsException {
-            // -1: limit; log exactly this commit; git show would do this job also, but there is no api in GitHistoryUtils
-            // ("git show hash" <-> "git log hash -1")
-            List<GitCommit> history = GitHistoryUtils.history(project, gitRepositoryRoot, revisionId, "-1");
-            return Iterables.getOnlyElement(history);
+        /**
+         * Loads all commits with a single git process: '--no-walk' logs exactly the provided commits.
+         */
+        private Map<String, GitCommit> getCommits(VirtualFile gitRepositoryRoot, String... revisionIds) throws VcsException {
+            List<String> parameters = Lists.newArrayList("--no-walk");
+            parameters.addAll(Arrays.asList(revisionIds));
+            List<GitCommit> history = GitHistoryUtils.history(project, gitRepositoryRoot, ArrayUtil.toStringArray(parameters));
+            Map<String, GitCommit> commits = Maps.newHashMap();
+            for (GitCommit commit : history) {
+                commits.put(commit.getId().asString(), commit);
+            }
+            return commits;
+        }
+
+        private GitCommit getCommit(Map<String, GitCommit> commits, String revisionId) throws VcsException {
+            GitCommit commit = commits.get(revisionId);
+            if (commit == null) {
+                throw new VcsException("Commit not found: " + revisionId);
+            }
+            return commit;
         }
 
         private ChangeNodeDecorator getChangeNodeDecorator() {
@@ -55,8 +55,10 @@ public class SettingsPanel {
     private JPanel settingsPane;
     private JPanel pane;
     private JCheckBox notificationOnNewReviewsCheckbox;
+    private JCheckBox eventStreamCheckbox;
     private JCheckBox automaticRefreshCheckbox;
     private JCheckBox listAllChangesCheckbox;
+    private JCheckBox parallelPageLoadingCheckbox;
     private JCheckBox pushToGerritCheckbox;
     private JCheckBox showChangeNumberColumnCheckBox;
     private JCheckBox showChangeIdColumnCheckBox;
@@ -138,6 +140,12 @@ public class SettingsPanel {
             }
         });
 
+        listAllChangesCheckbox.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                updateParallelPageLoading();
+            }
+        });
+
         showProjectColumnComboBox.setModel(new EnumComboBoxModel(ShowProjectColumn.class));
 
         cloneBaseUrlTextField.addFocusListener(new FocusAdapter() {
@@ -163,6 +171,10 @@ public class SettingsPanel {
         GuiUtils.enableChildren(refreshTimeoutSpinner, automaticRefreshCheckbox.isSelected());
     }
 
+    private void updateParallelPageLoading() {
+        parallelPageLoadingCheckbox.setEnabled(listAllChangesCheckbox.isSelected());
+    }
+
     public JComponent getPanel() {
         return pane;
     }
@@ -198,6 +210,15 @@ public class SettingsPanel {
 
     public void setListAllChanges(boolean listAllChanges) {
         listAllChangesCheckbox.setSelected(listAllChanges);
+        updateParallelPageLoading();
+    }
+
+    public boolean getParallelPageLoading() {
+        return parallelPageLoadingCheckbox.isSelected();
+    }
+
+    public void setParallelPageLoading(boolean parallelPageLoading) {
+        parallelPageLoadingCheckbox.setSelected(parallelPageLoading);
     }
 
     public void setAutomaticRefresh(final boolean automaticRefresh) {
@@ -225,6 +246,14 @@ public class SettingsPanel {
         return notificationOnNewReviewsCheckbox.isSelected();
     }
 
+    public void setEventStream(final boolean eventStream) {
+        eventStreamCheckbox.setSelected(eventStream);
+    }
+
+    public boolean getEventStream() {
+        return eventStreamCheckbox.isSelected();
+    }
+
     public void setPushToGerrit(final boolean pushToGerrit) {
         pushToGerritCheckbox.setSelected(pushToGerrit);
     }
@@ -44,6 +44,6 @@ public abstract class AbstractChangeAction extends AnAction implements DumbAware
     }
 
     protected void getChangeDetail(ChangeInfo selectedChange, Project project, final Consumer<ChangeInfo> consumer) {
-        gerritUtil.getChangeDetails(selectedChange._number, project, consumer);
+        gerritUtil.getChangeDetails(selectedChange, project, consumer);
     }
 }
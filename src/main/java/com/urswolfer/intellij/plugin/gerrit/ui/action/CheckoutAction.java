@@ -105,10 +105,13 @@ public class CheckoutAction extends AbstractChangeAction {
                             i++;
                         }
                         final String finalCheckedOutBranchName = checkedOutBranchName;
+                        // not FETCH_HEAD: it is not updated if the commit was present already and might be
+                        // overwritten by another fetch until the checkout starts
+                        final String commitHash = selectedRevisions.get(changeDetails);
                         ApplicationManager.getApplication().invokeLater(new Runnable() {
                             @Override
                             public void run() {
-                                brancher.checkoutNewBranchStartingFrom(finalCheckedOutBranchName, "FETCH_HEAD", gitRepositories, new Runnable() {
+                                brancher.checkoutNewBranchStartingFrom(finalCheckedOutBranchName, commitHash, gitRepositories, new Runnable() {
                                     @Override
                                     public void run() {
                                         GitVcs.runInBackground(new Task.Backgroundable(project, "Setting upstream branch...", false) {
@@ -27,6 +27,7 @@ import com.intellij.openapi.actionSystem.PlatformDataKeys;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.urswolfer.intellij.plugin.gerrit.GerritModule;
+import com.urswolfer.intellij.plugin.gerrit.SelectedRevisions;
 import com.urswolfer.intellij.plugin.gerrit.git.GerritGitUtil;
 import com.urswolfer.intellij.plugin.gerrit.util.NotificationBuilder;
 import com.urswolfer.intellij.plugin.gerrit.util.NotificationService;
@@ -48,6 +49,8 @@ public class CompareBranchAction extends AbstractChangeAction {
     private FetchAction fetchAction;
     @Inject
     private NotificationService notificationService;
+    @Inject
+    private SelectedRevisions selectedRevisions;
 
     public CompareBranchAction() {
         super("Compare with Branch", "Compare change with current branch", AllIcons.Actions.Diff);
@@ -80,7 +83,8 @@ public class CompareBranchAction extends AbstractChangeAction {
         }
         final GitRepository gitRepository = gitRepositoryOptional.get();
 
-        final String branchName = "FETCH_HEAD";
+        // the fetched commit itself: FETCH_HEAD might have been overwritten by another fetch in the meantime
+        final String branchName = selectedRevisions.get(changeInfo);
         GitLocalBranch currentBranch = gitRepository.getCurrentBranch();
         final String currentBranchName;
         if (currentBranch != null) {
@@ -45,7 +45,7 @@ public class FetchAction {
     private SelectedRevisions selectedRevisions;
 
     public void fetchChange(ChangeInfo selectedChange, final Project project, final Callable<Void> fetchCallback) {
-        gerritUtil.getChangeDetails(selectedChange._number, project, new Consumer<ChangeInfo>() {
+        gerritUtil.getChangeDetails(selectedChange, project, new Consumer<ChangeInfo>() {
             @Override
             public void consume(ChangeInfo changeDetails) {
 
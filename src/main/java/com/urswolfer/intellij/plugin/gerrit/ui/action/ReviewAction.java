@@ -82,6 +82,7 @@ public class ReviewAction extends AbstractLoggedInChangeAction {
             return;
         }
         final ChangeInfo changeDetails = selectedChange.get();
+        // not cached: drafts might have been changed in another client, which does not update the change
         gerritUtil.getComments(changeDetails._number, selectedRevisions.get(changeDetails), project, false, true,
                 new Consumer<Map<String, List<CommentInfo>>>() {
             @Override
@@ -21,6 +21,7 @@ import com.intellij.openapi.fileTypes.PlainTextFileType;
 import com.intellij.openapi.vcs.FilePath;
 import com.intellij.openapi.vcs.RemoteFilePath;
 import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ContentRevision;
 import com.intellij.openapi.vcs.changes.SimpleContentRevision;
 import git4idea.GitCommit;
 import org.jetbrains.annotations.NotNull;
@@ -30,16 +31,19 @@ import java.util.Collection;
 /**
  * @author Thomas Forrer
  */
-public class ChangesWithCommitMessageProvider implements CommitDiffBuilder.ChangesProvider {
+public class ChangesWithCommitMessageProvider {
 
-    @Override
     public Collection<Change> provide(GitCommit gitCommit) {
         return getChangesWithCommitMessage(gitCommit);
     }
 
     private Collection<Change> getChangesWithCommitMessage(GitCommit gitCommit) {
         Collection<Change> changes = gitCommit.getChanges();
+        changes.add(new Change(null, createCommitMessageRevision(gitCommit)));
+        return changes;
+    }
 
+    public static ContentRevision createCommitMessageRevision(GitCommit gitCommit) {
         String content = new CommitMessageFormatter(gitCommit).getLongCommitMessage();
         FilePath commitMsg = new RemoteFilePath("/COMMIT_MSG", false) {
             @NotNull
@@ -48,12 +52,10 @@ public class ChangesWithCommitMessageProvider implements CommitDiffBuilder.Chang
                 return PlainTextFileType.INSTANCE;
             }
         };
-
-        changes.add(new Change(null, new SimpleContentRevision(
+        return new SimpleContentRevision(
             content,
             commitMsg,
             gitCommit.getId().asString()
-        )));
-        return changes;
+        );
     }
 }
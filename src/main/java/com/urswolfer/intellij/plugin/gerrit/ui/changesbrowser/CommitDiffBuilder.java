@@ -18,14 +18,11 @@
 
 package com.urswolfer.intellij.plugin.gerrit.ui.changesbrowser;
 
-import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vcs.VcsException;
 import com.intellij.openapi.vcs.changes.Change;
 import com.intellij.openapi.vcs.changes.ContentRevision;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.urswolfer.intellij.plugin.gerrit.util.PathUtils;
 import git4idea.GitCommit;
 import git4idea.changes.GitChangeUtils;
 
@@ -38,27 +35,10 @@ import java.util.Collection;
  */
 public class CommitDiffBuilder {
 
-    private static final Predicate<Change> COMMIT_MSG_CHANGE_PREDICATE = new Predicate<Change>() {
-        @Override
-        public boolean apply(Change change) {
-            String commitMsgFile = "/COMMIT_MSG";
-            ContentRevision afterRevision = change.getAfterRevision();
-            if (afterRevision != null) {
-                return commitMsgFile.equals(PathUtils.ensureSlashSeparators(afterRevision.getFile().getPath()));
-            }
-            ContentRevision beforeRevision = change.getBeforeRevision();
-            if (beforeRevision != null) {
-                return commitMsgFile.equals(PathUtils.ensureSlashSeparators(beforeRevision.getFile().getPath()));
-            }
-            throw new IllegalStateException("Change should have at least one ContentRevision set.");
-        }
-    };
-
     private final Project project;
     private final VirtualFile gitRepositoryRoot;
     private final GitCommit base;
     private final GitCommit commit;
-    private ChangesProvider changesProvider = new SimpleChangesProvider();
 
     public CommitDiffBuilder(Project project, VirtualFile gitRepositoryRoot, GitCommit base, GitCommit commit) {
         this.project = project;
@@ -67,11 +47,6 @@ public class CommitDiffBuilder {
         this.commit = commit;
     }
 
-    public CommitDiffBuilder withChangesProvider(ChangesProvider changesProvider) {
-        this.changesProvider = changesProvider;
-        return this;
-    }
-
     public Collection<Change> getDiff() throws VcsException {
         String baseHash = base.getId().asString();
         String hash = commit.getId().asString();
@@ -80,22 +55,12 @@ public class CommitDiffBuilder {
         return result;
     }
 
+    /**
+     * The commit message is built from the already loaded commits (the changes of the commits are not needed).
+     */
     private Change buildCommitMsgChange() {
-        Change baseChange = Iterables.find(changesProvider.provide(base), COMMIT_MSG_CHANGE_PREDICATE);
-        ContentRevision baseRevision = baseChange.getAfterRevision();
-        Change change = Iterables.find(changesProvider.provide(commit), COMMIT_MSG_CHANGE_PREDICATE);
-        ContentRevision revision = change.getAfterRevision();
+        ContentRevision baseRevision = ChangesWithCommitMessageProvider.createCommitMessageRevision(base);
+        ContentRevision revision = ChangesWithCommitMessageProvider.createCommitMessageRevision(commit);
         return new Change(baseRevision, revision);
     }
-
-    public static interface ChangesProvider {
-        Collection<Change> provide(GitCommit gitCommit);
-    }
-
-    private static final class SimpleChangesProvider implements ChangesProvider {
-        @Override
-        public Collection<Change> provide(GitCommit gitCommit) {
-            return gitCommit.getChanges();
-        }
-    }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.urswolfer.intellij.plugin.gerrit.ui.changesbrowser;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Singleton;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ContentRevision;
+import com.intellij.openapi.vcs.changes.SimpleContentRevision;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * LRU cache for the changes between two commits (or of a single commit), as shown in the changes browser.
+ *
+ * Commits are immutable and so is their diff: entries never get outdated and switching back to a patch set or base
+ * revision which has been shown before does not need to access git (or fetch) again. Contents of files are not
+ * cached (revisions load them on demand), only the commit message; the cache size is limited by an (estimated)
+ * memory budget.
+ *
+ * @author Urs Wolfer
+ */
+@Singleton
+public class CommitDiffCache {
+
+    private static final long DEFAULT_MAX_MEMORY_BYTES = 8 * 1024 * 1024;
+
+    private static final int ESTIMATED_ENTRY_BYTES = 256;
+    private static final int ESTIMATED_CHANGE_BYTES = 1024;
+
+    private final long maxMemoryBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    private long usedMemoryBytes = 0;
+
+    public CommitDiffCache() {
+        this(DEFAULT_MAX_MEMORY_BYTES);
+    }
+
+    public CommitDiffCache(long maxMemoryBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+    }
+
+    /**
+     * @param baseHash the commit to compare with; null for the changes of the commit itself (compared to its parent)
+     * @return the cached (unmodifiable) changes or null if they are not cached
+     */
+    @Nullable
+    public synchronized List<Change> get(String repositoryRoot, @Nullable String baseHash, String hash) {
+        Entry entry = entries.get(new Key(repositoryRoot, baseHash, hash));
+        return entry != null ? entry.changes : null;
+    }
+
+    public synchronized void put(String repositoryRoot, @Nullable String baseHash, String hash, Collection<Change> changes) {
+        Key key = new Key(repositoryRoot, baseHash, hash);
+        Entry entry = new Entry(ImmutableList.copyOf(changes));
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            usedMemoryBytes -= previous.estimatedBytes;
+        }
+        usedMemoryBytes += entry.estimatedBytes;
+        evictIfRequired();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        usedMemoryBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getEstimatedMemoryBytes() {
+        return usedMemoryBytes;
+    }
+
+    private void evictIfRequired() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        // always keep the most recently added entry
+        while (usedMemoryBytes > maxMemoryBytes && entries.size() > 1 && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            usedMemoryBytes -= eldest.estimatedBytes;
+            iterator.remove();
+        }
+    }
+
+    private static long estimateBytes(List<Change> changes) {
+        long bytes = ESTIMATED_ENTRY_BYTES;
+        for (Change change : changes) {
+            bytes += ESTIMATED_CHANGE_BYTES;
+            bytes += estimateContentBytes(change.getBeforeRevision());
+            bytes += estimateContentBytes(change.getAfterRevision());
+        }
+        return bytes;
+    }
+
+    private static long estimateContentBytes(@Nullable ContentRevision revision) {
+        // only the commit message is held in memory; other contents are loaded on demand
+        if (revision instanceof SimpleContentRevision) {
+            String content = ((SimpleContentRevision) revision).getContent();
+            return content != null ? 2L * content.length() : 0;
+        }
+        return 0;
+    }
+
+    private static final class Entry {
+        private final List<Change> changes;
+        private final long estimatedBytes;
+
+        private Entry(List<Change> changes) {
+            this.changes = changes;
+            this.estimatedBytes = estimateBytes(changes);
+        }
+    }
+
+    private static final class Key {
+        private final String repositoryRoot;
+        private final String baseHash;
+        private final String hash;
+
+        private Key(String repositoryRoot, String baseHash, String hash) {
+            this.repositoryRoot = repositoryRoot;
+            this.baseHash = baseHash;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equal(repositoryRoot, key.repositoryRoot)
+                && Objects.equal(baseHash, key.baseHash)
+                && Objects.equal(hash, key.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(repositoryRoot, baseHash, hash);
+        }
+    }
+}
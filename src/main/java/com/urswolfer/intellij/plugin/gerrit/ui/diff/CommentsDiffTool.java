@@ -151,7 +151,7 @@ public class CommentsDiffTool implements FrameDiffTool, SuppressiveDiffTool {
 
         addCommentAction(editor1, editor2, relativeFilePath, changeInfo, selectedRevisionId, baseRevision);
 
-        gerritUtil.getComments(changeInfo._number, selectedRevisionId, project, true, true,
+        gerritUtil.getComments(changeInfo, selectedRevisionId, project, true, true,
                 new Consumer<Map<String, List<CommentInfo>>>() {
                     @Override
                     public void consume(Map<String, List<CommentInfo>> comments) {
@@ -181,7 +181,7 @@ public class CommentsDiffTool implements FrameDiffTool, SuppressiveDiffTool {
         );
 
         if (baseRevision.isPresent()) {
-            gerritUtil.getComments(changeInfo._number, baseRevision.get().getFirst(), project, true, true,
+            gerritUtil.getComments(changeInfo, baseRevision.get().getFirst(), project, true, true,
                     new Consumer<Map<String, List<CommentInfo>>>() {
                 @Override
                 public void consume(Map<String, List<CommentInfo>> comments) {
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.urswolfer.intellij.plugin.gerrit.git;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Urs Wolfer
+ */
+public class GerritProjectIndexTest {
+
+    @Test
+    public void testProjectNames() throws Exception {
+        // Default set - test trailing / behaviour
+        assertProjectName("http://gerrit.server", "http://gerrit.server/project", "project");
+        assertProjectName("http://gerrit.server/", "http://gerrit.server/project", "project");
+        assertProjectName("http://gerrit.server", "http://gerrit.server/project/", "project");
+        assertProjectName("http://gerrit.server/", "http://gerrit.server/project/", "project");
+
+        // Subdirectory set - test trailing / behaviour
+        assertProjectName("http://gerrit.server/r", "http://gerrit.server/r/project", "project");
+        assertProjectName("http://gerrit.server/r/", "http://gerrit.server/r/project", "project");
+        assertProjectName("http://gerrit.server/r", "http://gerrit.server/r/project/", "project");
+        assertProjectName("http://gerrit.server/r/", "http://gerrit.server/r/project/", "project");
+
+        // Default set - test named .git
+        assertProjectName("http://gerrit.server", "http://gerrit.server/project.git", "project");
+        assertProjectName("http://gerrit.server/", "http://gerrit.server/project.git", "project");
+
+        // Subdirectory set - test named .git
+        assertProjectName("http://gerrit.server/r", "http://gerrit.server/r/project.git", "project");
+        assertProjectName("http://gerrit.server/r/", "http://gerrit.server/r/project.git", "project");
+
+        // Test some project names with / in them
+        assertProjectName("http://gerrit.server/r", "http://gerrit.server/r/project/blah/test", "project/blah/test");
+        assertProjectName("http://gerrit.server/r", "http://gerrit.server/r/project/blah/test.git", "project/blah/test");
+
+        // specific case where gerrit URL is provided via HTTP but git is configured to use ssh
+        assertProjectName("http://gerrit.server/gerrit", "ssh://git@gerrit.server:29418/project/blah", "project/blah");
+
+        // should not fail with an StringIndexOutOfBoundsException
+        assertProjectName("http://gerrit.server", "http://gerrit.server", "");
+    }
+
+    @Test
+    public void testProjectNamesWithCloneBaseUrl() throws Exception {
+        Assert.assertEquals(GerritProjectIndex.getProjectName("http://gerrit.server/r", "ssh://gerrit.server:29418/git",
+            "ssh://gerrit.server:29418/git/project/blah.git"), "project/blah");
+        Assert.assertEquals(GerritProjectIndex.getProjectName("http://gerrit.server/r", "",
+            "http://gerrit.server/r/project"), "project");
+    }
+
+    private static void assertProjectName(String gerritUrl, String url, String expectedProjectName) {
+        Assert.assertEquals(GerritProjectIndex.getProjectName(gerritUrl, null, url), expectedProjectName);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.urswolfer.intellij.plugin.gerrit.git;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.CharStreams;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * @author Urs Wolfer
+ */
+public class GitObjectPresenceTest {
+
+    private File repository;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        repository = Files.createTempDirectory("git-object-presence").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        delete(repository);
+    }
+
+    @Test
+    public void testIsCommit() throws Exception {
+        Assert.assertTrue(GitObjectPresence.isCommit("e83c5163316f89bfbde7d9ab23ca2e25604af290 commit 243"));
+        Assert.assertFalse(GitObjectPresence.isCommit("e83c5163316f89bfbde7d9ab23ca2e25604af290 tree 37"));
+        Assert.assertFalse(GitObjectPresence.isCommit("e83c5163316f89bfbde7d9ab23ca2e25604af290 missing"));
+        Assert.assertFalse(GitObjectPresence.isCommit("e83c ambiguous"));
+    }
+
+    /**
+     * Many more hashes than fit into one chunk: git must not block on its output while the check is writing.
+     */
+    @Test(timeOut = 30000)
+    public void testBatchCheck() throws Exception {
+        git("init", "-q");
+        git("-c", "user.name=Test", "-c", "user.email=test@example.org", "commit", "-q", "--allow-empty", "-m", "a");
+        String commit = git("rev-parse", "HEAD");
+        String tree = git("rev-parse", "HEAD^{tree}");
+
+        List<String> hashes = Lists.newArrayList();
+        for (int i = 0; i < 20 * GitObjectPresence.CHUNK_SIZE; i++) {
+            hashes.add(String.format("%040x", i + 1));
+        }
+        hashes.add(commit);
+        hashes.add(tree);
+        hashes.add(GitObjectPresence.CHUNK_SIZE, commit.substring(0, 12)); // abbreviated
+
+        GitObjectPresence.BatchCheck batchCheck = new GitObjectPresence.BatchCheck(
+            new ProcessBuilder("git", "cat-file", "--batch-check")
+                .directory(repository)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start());
+        try {
+            Assert.assertEquals(batchCheck.getPresentCommits(hashes), Sets.newHashSet(commit, commit.substring(0, 12)));
+            // the process keeps running for the next query
+            Assert.assertEquals(batchCheck.getPresentCommits(Lists.newArrayList(tree, commit)), Sets.newHashSet(commit));
+        } finally {
+            batchCheck.stop();
+        }
+    }
+
+    private String git(String... args) throws IOException, InterruptedException {
+        List<String> command = Lists.newArrayList("git");
+        command.addAll(Lists.newArrayList(args));
+        Process process;
+        try {
+            process = new ProcessBuilder(command).directory(repository).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            throw new SkipException("git is not available", e);
+        }
+        String output = CharStreams.toString(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        Assert.assertEquals(process.waitFor(), 0, output);
+        return output.trim();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
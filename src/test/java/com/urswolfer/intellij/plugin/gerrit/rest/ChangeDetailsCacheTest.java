@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.gerrit.extensions.common.ChangeInfo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Timestamp;
+
+/**
+ * @author Urs Wolfer
+ */
+public class ChangeDetailsCacheTest {
+
+    private static final String HOST = "https://gerrit.example.com";
+
+    @Test
+    public void testHitWhenNotOutdated() throws Exception {
+        ChangeDetailsCache cache = new ChangeDetailsCache();
+        ChangeInfo changeInfo = createChangeInfo(1, 1000);
+        cache.put(HOST, changeInfo);
+
+        Assert.assertSame(cache.get(HOST, 1, new Timestamp(1000)), changeInfo);
+        Assert.assertSame(cache.get(HOST, 1, new Timestamp(500)), changeInfo);
+        Assert.assertEquals(cache.getHitCount(), 2);
+    }
+
+    @Test
+    public void testMissWhenOutdated() throws Exception {
+        ChangeDetailsCache cache = new ChangeDetailsCache();
+        cache.put(HOST, createChangeInfo(1, 1000));
+
+        Assert.assertNull(cache.get(HOST, 1, new Timestamp(2000)));
+        Assert.assertNull(cache.get(HOST, 2, new Timestamp(1000)));
+        Assert.assertNull(cache.get("https://other.example.com", 1, new Timestamp(1000)));
+        Assert.assertEquals(cache.getMissCount(), 3);
+    }
+
+    @Test
+    public void testIncompleteChangeIsNotCached() throws Exception {
+        ChangeDetailsCache cache = new ChangeDetailsCache();
+        cache.put(HOST, new ChangeInfo());
+
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        ChangeDetailsCache cache = new ChangeDetailsCache();
+        cache.put(HOST, createChangeInfo(1, 1000));
+        cache.put(HOST, createChangeInfo(2, 1000));
+
+        cache.invalidate("project~master~I1");
+
+        Assert.assertNull(cache.get(HOST, 1, new Timestamp(1000)));
+        Assert.assertNotNull(cache.get(HOST, 2, new Timestamp(1000)));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        ChangeDetailsCache cache = new ChangeDetailsCache(10 * 1024);
+        cache.put(HOST, createChangeInfo(1, 1000));
+        cache.put(HOST, createChangeInfo(2, 1000));
+        cache.get(HOST, 1, new Timestamp(1000));
+        cache.put(HOST, createChangeInfo(3, 1000));
+
+        Assert.assertNotNull(cache.get(HOST, 1, new Timestamp(1000)));
+        Assert.assertNull(cache.get(HOST, 2, new Timestamp(1000)));
+        Assert.assertNotNull(cache.get(HOST, 3, new Timestamp(1000)));
+        Assert.assertEquals(cache.getEvictionCount(), 1);
+    }
+
+    private static ChangeInfo createChangeInfo(int changeNr, long updated) {
+        ChangeInfo changeInfo = new ChangeInfo();
+        changeInfo._number = changeNr;
+        changeInfo.id = "project~master~I" + changeNr;
+        changeInfo.updated = new Timestamp(updated);
+        return changeInfo;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.collect.Lists;
+import com.intellij.util.Consumer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+/**
+ * @author Urs Wolfer
+ */
+public class ChangeEventStreamTest {
+
+    @Test
+    public void testParser() throws Exception {
+        ChangeEventParser parser = new ChangeEventParser(new StringReader(
+            "{\"type\":\"change-abandoned\",\"change\":{\"project\":\"p\",\"id\":\"I1\",\"number\":\"7\"},"
+                + "\"eventCreatedOn\":10}\n"
+                + "{\"type\":\"ref-updated\",\"eventCreatedOn\":11}\n"));
+        Assert.assertEquals(parser.next(), new ChangeEvent("change-abandoned", "p", null, "I1", 7, 10000));
+        Assert.assertNull(parser.next());
+    }
+
+    @Test
+    public void testReplayWithoutDuplicates() throws Exception {
+        ReplayChangeEventSource source = new ReplayChangeEventSource("events.json");
+        ChangeEventStream stream = new ChangeEventStream();
+        final List<ChangeEvent> events = Lists.newArrayList();
+        Consumer<ChangeEvent> consumer = new Consumer<ChangeEvent>() {
+            @Override
+            public void consume(ChangeEvent event) {
+                events.add(event);
+            }
+        };
+
+        stream.read(source, consumer);
+        Assert.assertEquals(events.size(), 3); // ref-updated does not refer to a change
+        Assert.assertEquals(events.get(0).getType(), "patchset-created");
+        Assert.assertEquals(events.get(1).getNumber(), 101);
+        Assert.assertEquals(events.get(2).getProject(), "other");
+        Assert.assertEquals(events.get(2).getCreatedOnMs(), 1700000060000L);
+        Assert.assertTrue(stream.isConnected());
+
+        // the source returns the same events again (like an event log queried with an overlapping start time)
+        stream.read(source, consumer);
+        Assert.assertEquals(source.getOpenCount(), 2);
+        Assert.assertEquals(events.size(), 3);
+    }
+}
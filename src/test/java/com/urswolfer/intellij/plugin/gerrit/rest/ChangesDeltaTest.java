@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.gerrit.extensions.common.ChangeInfo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+/**
+ * @author Urs Wolfer
+ */
+public class ChangesDeltaTest {
+
+    @Test
+    public void testChangesNotMatchingAnymoreAreRemoved() throws Exception {
+        ChangeInfo updated = createChangeInfo("project~master~I1");
+        ChangeInfo merged = createChangeInfo("project~master~I2");
+
+        ChangesDelta delta = new ChangesDelta(Lists.newArrayList(updated), Lists.newArrayList(updated, merged));
+
+        Assert.assertEquals(delta.getUpdatedChanges(), Lists.newArrayList(updated));
+        Assert.assertEquals(delta.getRemovedChangeIds(), ImmutableSet.of("project~master~I2"));
+        Assert.assertTrue(delta.isComplete());
+    }
+
+    @Test
+    public void testIncompleteWhenMoreChangesAvailable() throws Exception {
+        ChangeInfo changeInfo = createChangeInfo("project~master~I1");
+        changeInfo._moreChanges = true;
+
+        ChangesDelta delta = new ChangesDelta(Lists.newArrayList(changeInfo), Collections.<ChangeInfo>emptyList());
+
+        Assert.assertFalse(delta.isComplete());
+    }
+
+    private static ChangeInfo createChangeInfo(String id) {
+        ChangeInfo changeInfo = new ChangeInfo();
+        changeInfo.id = id;
+        return changeInfo;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.gerrit.extensions.api.changes.Changes;
+import com.google.gerrit.extensions.client.ListChangesOption;
+import com.google.gerrit.extensions.common.ActionInfo;
+import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gerrit.extensions.common.LabelInfo;
+import com.google.gerrit.extensions.common.RevisionInfo;
+import com.google.gerrit.extensions.restapi.RestApiException;
+import org.easymock.EasyMock;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * @author Urs Wolfer
+ */
+public class ChangesListOptionsTest {
+
+    @Test
+    public void testListOptionsAreLean() throws Exception {
+        for (ListChangesOption option : EnumSet.of(ListChangesOption.ALL_REVISIONS, ListChangesOption.CHANGE_ACTIONS,
+            ListChangesOption.CURRENT_ACTIONS, ListChangesOption.DETAILED_LABELS, ListChangesOption.MESSAGES)) {
+            Assert.assertFalse(ChangesListOptions.CHANGES_LIST_OPTIONS.contains(option), option.name());
+        }
+    }
+
+    @Test
+    public void testEnrichedOptionsCoverListColumns() throws Exception {
+        // enriched data replaces labels and revisions of a row, so it must contain everything the columns render
+        Assert.assertTrue(ChangesListOptions.ENRICHED_CHANGE_OPTIONS.containsAll(EnumSet.of(
+            ListChangesOption.ALL_REVISIONS, ListChangesOption.DETAILED_ACCOUNTS, ListChangesOption.LABELS)));
+    }
+
+    @Test
+    public void testCreateEnrichedChangesQuery() throws Exception {
+        Changes changes = EasyMock.createMock(Changes.class);
+        EasyMock.expect(changes.query("change:1+OR+change:22+OR+change:333")).andReturn(new TestQueryRequest());
+        EasyMock.replay(changes);
+
+        Changes.QueryRequest request = ChangesListOptions.createEnrichedChangesQuery(changes,
+            Lists.newArrayList(1, 22, 333));
+
+        EasyMock.verify(changes);
+        Assert.assertEquals(request.getLimit(), 3);
+        Assert.assertEquals(request.getOptions(), ChangesListOptions.ENRICHED_CHANGE_OPTIONS);
+        // options get adapted to the server version; the shared set must not be modified
+        request.getOptions().remove(ListChangesOption.CHANGE_ACTIONS);
+        Assert.assertTrue(ChangesListOptions.ENRICHED_CHANGE_OPTIONS.contains(ListChangesOption.CHANGE_ACTIONS));
+    }
+
+    @Test
+    public void testCopyEnrichedData() throws Exception {
+        ChangeInfo row = new ChangeInfo();
+        row._number = 1;
+        row.subject = "subject";
+        row.currentRevision = "rev2";
+        row.labels = ImmutableMap.of("Code-Review", new LabelInfo());
+
+        ChangeInfo enriched = new ChangeInfo();
+        enriched._number = 1;
+        enriched.subject = "updated subject";
+        enriched.revisions = ImmutableMap.of("rev1", new RevisionInfo(), "rev2", new RevisionInfo());
+        enriched.actions = ImmutableMap.of("abandon", new ActionInfo());
+        enriched.labels = ImmutableMap.of("Code-Review", new LabelInfo(), "Verified", new LabelInfo());
+        enriched.permittedLabels = ImmutableMap.<String, Collection<String>>of("Verified",
+            Lists.newArrayList("-1", " 0", "+1"));
+
+        ChangesListOptions.copyEnrichedData(enriched, row);
+
+        Assert.assertEquals(row.subject, "subject"); // list columns stay as loaded with the list
+        Assert.assertEquals(row.currentRevision, "rev2");
+        Assert.assertSame(row.revisions, enriched.revisions);
+        Assert.assertSame(row.actions, enriched.actions);
+        Assert.assertSame(row.labels, enriched.labels);
+        Assert.assertSame(row.permittedLabels, enriched.permittedLabels);
+    }
+
+    private static final class TestQueryRequest extends Changes.QueryRequest {
+        @Override
+        public List<ChangeInfo> get() throws RestApiException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gerrit.extensions.common.CommentInfo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Urs Wolfer
+ */
+public class CommentsCacheTest {
+
+    private static final String HOST = "https://gerrit.example.com";
+    private static final String CHANGE_ID = "project~master~I1";
+
+    @Test
+    public void testKeyedByHostChangeAndRevision() throws Exception {
+        CommentsCache cache = new CommentsCache();
+        CommentsCache.RevisionComments comments = createComments(CHANGE_ID, 1000);
+        cache.put(HOST, 1, "rev1", comments);
+
+        Assert.assertSame(cache.get(HOST, 1, "rev1", new Timestamp(1000)), comments);
+        Assert.assertNull(cache.get(HOST, 1, "rev2", new Timestamp(1000)));
+        Assert.assertNull(cache.get(HOST, 2, "rev1", new Timestamp(1000)));
+        Assert.assertNull(cache.get("https://other.example.com", 1, "rev1", new Timestamp(1000)));
+    }
+
+    @Test
+    public void testMissWhenChangeUpdated() throws Exception {
+        CommentsCache cache = new CommentsCache();
+        cache.put(HOST, 1, "rev1", createComments(CHANGE_ID, 1000));
+
+        Assert.assertNotNull(cache.get(HOST, 1, "rev1", new Timestamp(500)));
+        Assert.assertNull(cache.get(HOST, 1, "rev1", new Timestamp(2000)));
+        Assert.assertNull(cache.get(HOST, 1, "rev1", null));
+    }
+
+    @Test
+    public void testPutAndRemoveDraft() throws Exception {
+        CommentsCache cache = new CommentsCache();
+        cache.put(HOST, 1, "rev1", createComments(CHANGE_ID, 1000));
+
+        cache.putDraft(HOST, 1, "rev1", createComment("d2", "b.txt", "new draft"));
+        cache.putDraft(HOST, 1, "rev1", createComment("d1", "a.txt", "edited draft"));
+        Map<String, List<CommentInfo>> drafts = cache.get(HOST, 1, "rev1", new Timestamp(1000)).toMap(false, true);
+        Assert.assertEquals(messages(drafts.get("a.txt")), Lists.newArrayList("edited draft"));
+        Assert.assertEquals(messages(drafts.get("b.txt")), Lists.newArrayList("new draft"));
+
+        cache.removeDraft(HOST, 1, "rev1", "d1");
+        Map<String, List<CommentInfo>> all = cache.get(HOST, 1, "rev1", new Timestamp(1000)).toMap(true, true);
+        Assert.assertEquals(messages(all.get("a.txt")), Lists.newArrayList("published"));
+        Assert.assertEquals(messages(all.get("b.txt")), Lists.newArrayList("new draft"));
+    }
+
+    @Test
+    public void testDraftWithoutPathRemovesEntry() throws Exception {
+        CommentsCache cache = new CommentsCache();
+        cache.put(HOST, 1, "rev1", createComments(CHANGE_ID, 1000));
+
+        cache.putDraft(HOST, 1, "rev1", createComment("d3", null, "draft"));
+
+        Assert.assertNull(cache.get(HOST, 1, "rev1", new Timestamp(1000)));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        CommentsCache cache = new CommentsCache();
+        cache.put(HOST, 1, "rev1", createComments(CHANGE_ID, 1000));
+        cache.put(HOST, 1, "rev2", createComments(CHANGE_ID, 1000));
+        cache.put(HOST, 2, "rev1", createComments("project~master~I2", 1000));
+
+        cache.invalidate(CHANGE_ID);
+
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertNotNull(cache.get(HOST, 2, "rev1", new Timestamp(1000)));
+    }
+
+    private static CommentsCache.RevisionComments createComments(String changeId, long updated) {
+        Map<String, List<CommentInfo>> published = ImmutableMap.<String, List<CommentInfo>>of(
+            "a.txt", Lists.newArrayList(createComment("c1", "a.txt", "published")));
+        Map<String, List<CommentInfo>> drafts = Maps.newHashMap();
+        drafts.put("a.txt", Lists.newArrayList(createComment("d1", "a.txt", "draft")));
+        return new CommentsCache.RevisionComments(changeId, new Timestamp(updated), published, drafts);
+    }
+
+    private static CommentInfo createComment(String id, String path, String message) {
+        CommentInfo comment = new CommentInfo();
+        comment.id = id;
+        comment.path = path;
+        comment.message = message;
+        return comment;
+    }
+
+    private static List<String> messages(List<CommentInfo> comments) {
+        List<String> messages = Lists.newArrayList();
+        for (CommentInfo comment : comments) {
+            messages.add(comment.message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Urs Wolfer
+ */
+public class ConditionalRequestClientBuilderExtensionTest {
+
+    private static final String KEY_PREFIX = "user@https://gerrit.example.com ";
+    private static final String DETAIL_URI = "/a/changes/1/detail";
+
+    @Test
+    public void testNotModifiedResponseIsServedFromCache() throws Exception {
+        ConditionalRequestClientBuilderExtension extension = new ConditionalRequestClientBuilderExtension();
+        execute(extension, DETAIL_URI, createResponse(200, "\"etag-1\"", "{\"id\":1}"));
+
+        HttpContext context = new BasicHttpContext();
+        HttpRequest request = new BasicHttpRequest("GET", DETAIL_URI);
+        extension.prepareRequest(KEY_PREFIX, request, context);
+        Assert.assertEquals(request.getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue(), "\"etag-1\"");
+
+        HttpResponse notModified = createResponse(304, "\"etag-1\"", null);
+        extension.processResponse(notModified, context);
+        Assert.assertEquals(notModified.getStatusLine().getStatusCode(), 200);
+        Assert.assertEquals(EntityUtils.toString(notModified.getEntity()), "{\"id\":1}");
+        Assert.assertEquals(extension.getNotModifiedCount(), 1);
+    }
+
+    @Test
+    public void testOnlySingleResourcesAreCached() throws Exception {
+        ConditionalRequestClientBuilderExtension extension = new ConditionalRequestClientBuilderExtension();
+        execute(extension, "/a/changes/?q=status:open", createResponse(200, "\"etag-1\"", "[]"));
+        execute(extension, "/a/projects/test", createResponse(200, "\"etag-2\"", "{}"));
+
+        Assert.assertEquals(extension.size(), 0);
+    }
+
+    @Test
+    public void testResponseWithoutEtagRemovesEntry() throws Exception {
+        ConditionalRequestClientBuilderExtension extension = new ConditionalRequestClientBuilderExtension();
+        execute(extension, DETAIL_URI, createResponse(200, "\"etag-1\"", "{\"id\":1}"));
+        execute(extension, DETAIL_URI, createResponse(200, null, "{\"id\":1}"));
+
+        Assert.assertEquals(extension.size(), 0);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        ConditionalRequestClientBuilderExtension extension = new ConditionalRequestClientBuilderExtension(20);
+        execute(extension, "/a/changes/1/detail", createResponse(200, "\"1\"", "0123456789"));
+        execute(extension, "/a/changes/2/detail", createResponse(200, "\"2\"", "0123456789"));
+        execute(extension, "/a/changes/3/detail", createResponse(200, "\"3\"", "0123456789"));
+
+        Assert.assertEquals(extension.size(), 2);
+        Assert.assertEquals(extension.getCachedBytes(), 20);
+        HttpRequest request = new BasicHttpRequest("GET", "/a/changes/1/detail");
+        extension.prepareRequest(KEY_PREFIX, request, new BasicHttpContext());
+        Assert.assertNull(request.getFirstHeader(HttpHeaders.IF_NONE_MATCH));
+    }
+
+    private static void execute(ConditionalRequestClientBuilderExtension extension,
+                                String uri,
+                                HttpResponse response) throws Exception {
+        HttpContext context = new BasicHttpContext();
+        extension.prepareRequest(KEY_PREFIX, new BasicHttpRequest("GET", uri), context);
+        extension.processResponse(response, context);
+    }
+
+    private static HttpResponse createResponse(int statusCode, String etag, String body) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, null);
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+        }
+        if (body != null) {
+            response.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        }
+        return response;
+    }
+}
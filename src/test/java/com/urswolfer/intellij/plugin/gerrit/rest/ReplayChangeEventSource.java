@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.io.Resources;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stand-in for a Gerrit event source: replays recorded events (one JSON event per line) on every open, like the
+ * events-log plugin would return them.
+ *
+ * @author Urs Wolfer
+ */
+public class ReplayChangeEventSource implements ChangeEventSource {
+
+    private final String events;
+    private int openCount = 0;
+
+    public ReplayChangeEventSource(String resourceName) throws IOException {
+        URL resource = Resources.getResource(ReplayChangeEventSource.class, resourceName);
+        events = Resources.toString(resource, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Reader open(long sinceMs) {
+        openCount++;
+        return new StringReader(events);
+    }
+
+    @Override
+    public long getReopenDelayMs() {
+        return 0;
+    }
+
+    public int getOpenCount() {
+        return openCount;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Urs Wolfer
+ */
+public class RequestStatisticsTest {
+
+    @Test
+    public void testEndpointTemplate() throws Exception {
+        Assert.assertEquals(RequestStatistics.getEndpointTemplate("/a/changes/?q=status:open&n=25"), "/changes/");
+        Assert.assertEquals(RequestStatistics.getEndpointTemplate("/a/changes/project~master~I1/detail"),
+            "/changes/{change-id}/detail");
+        Assert.assertEquals(RequestStatistics.getEndpointTemplate(
+                "https://review.example.org/gerrit/a/changes/1/revisions/abc/files/src%2FMain.java/diff"),
+            "/changes/{change-id}/revisions/{revision-id}/files/{file-id}/diff");
+        Assert.assertEquals(RequestStatistics.getEndpointTemplate("/a/changes/1/revisions/abc/comments"),
+            "/changes/{change-id}/revisions/{revision-id}/comments");
+        Assert.assertEquals(RequestStatistics.getEndpointTemplate("/a/accounts/self/starred.changes/1"),
+            "/accounts/{account-id}/starred.changes/{change-id}");
+        Assert.assertEquals(RequestStatistics.getEndpointTemplate("/config/server/version"), "/config/server/version");
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        RequestStatistics statistics = new RequestStatistics();
+        for (int i = 1; i <= 9; i++) {
+            statistics.recordResponse("/changes/", 200, 20, 0);
+        }
+        statistics.recordResponse("/changes/", 500, 3000, 1);
+        statistics.recordResponseSize("/changes/", 100);
+        statistics.recordResponseSize("/changes/", 300);
+
+        RequestStatistics.EndpointStatistics endpoint = statistics.getEndpointStatistics().get("/changes/");
+        Assert.assertEquals(endpoint.getLatency().getCount(), 10);
+        Assert.assertEquals(endpoint.getLatency().getPercentileMs(50), 25); // upper bound of the bucket
+        Assert.assertEquals(endpoint.getLatency().getPercentileMs(99), 3000);
+        Assert.assertEquals(endpoint.getLatency().getMaxMs(), 3000);
+        Assert.assertEquals(endpoint.getErrorCount(), 1);
+        Assert.assertEquals(endpoint.getRetries(), 1);
+        Assert.assertEquals(endpoint.getAverageBytes(), 200);
+    }
+
+    @Test
+    public void testQueueWait() throws Exception {
+        RequestStatistics statistics = new RequestStatistics();
+        statistics.recordQueueWait(GerritRequestExecutor.Priority.LOW, 400);
+        statistics.recordQueueWait(GerritRequestExecutor.Priority.LOW, 600);
+
+        RequestStatistics.Histogram histogram = statistics.getQueueWaits().get(GerritRequestExecutor.Priority.LOW);
+        Assert.assertEquals(histogram.getAverageMs(), 500);
+        Assert.assertEquals(histogram.getPercentileMs(50), 500);
+        Assert.assertNull(statistics.getQueueWaits().get(GerritRequestExecutor.Priority.HIGH));
+    }
+}
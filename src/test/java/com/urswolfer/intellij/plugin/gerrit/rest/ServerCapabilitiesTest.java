@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Urs Wolfer
+ */
+public class ServerCapabilitiesTest {
+
+    @Test
+    public void testCurrentVersion() throws Exception {
+        ServerCapabilities capabilities = ServerCapabilities.forVersion("3.4.1-12-gabcdef");
+
+        Assert.assertEquals(capabilities.getVersion(), "3.4.1-12-gabcdef");
+        Assert.assertTrue(capabilities.supportsStartOffset());
+        Assert.assertTrue(capabilities.supportsChangeActions());
+        Assert.assertTrue(capabilities.supportsCurrentActions());
+        Assert.assertTrue(capabilities.supportsMessages());
+    }
+
+    @Test
+    public void testOldVersions() throws Exception {
+        ServerCapabilities v2_8 = ServerCapabilities.forVersion("2.8.6");
+        Assert.assertFalse(v2_8.supportsStartOffset());
+        Assert.assertFalse(v2_8.supportsCurrentActions());
+        Assert.assertTrue(v2_8.supportsMessages());
+
+        ServerCapabilities v2_10 = ServerCapabilities.forVersion("2.10-rc1");
+        Assert.assertTrue(v2_10.supportsStartOffset());
+        Assert.assertTrue(v2_10.supportsCurrentActions());
+        Assert.assertFalse(v2_10.supportsChangeActions());
+    }
+
+    @Test
+    public void testUnknownVersion() throws Exception {
+        Assert.assertSame(ServerCapabilities.forVersion("dev"), ServerCapabilities.UNKNOWN);
+        Assert.assertSame(ServerCapabilities.forVersion(null), ServerCapabilities.UNKNOWN);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.collect.Lists;
+import com.google.gerrit.extensions.common.ChangeInfo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * @author Urs Wolfer
+ */
+public class ShardedChangesQueryTest {
+
+    @Test
+    public void testCreateShardQueries() throws Exception {
+        List<String> queries = ShardedChangesQuery.createShardQueries("status:open",
+            Lists.newArrayList("a", "b", "c", "b"), 40);
+        Assert.assertEquals(queries, Lists.newArrayList(
+            "status:open+(project:a+OR+project:b)",
+            "status:open+(project:c)"));
+
+        queries = ShardedChangesQuery.createShardQueries("", Lists.newArrayList("a-very-long-project-name"), 10);
+        Assert.assertEquals(queries, Lists.newArrayList("(project:a-very-long-project-name)"));
+    }
+
+    @Test
+    public void testMergeByUpdated() throws Exception {
+        ShardedChangesQuery query = new ShardedChangesQuery(2);
+        Assert.assertEquals(query.startLoading(), Lists.newArrayList(0, 1));
+        Assert.assertTrue(query.startLoading().isEmpty());
+
+        query.addPage(0, Lists.newArrayList(change(1, 90), change(2, 50, true)));
+        Assert.assertTrue(query.take(10).isEmpty()); // shard 1 might contain newer changes
+
+        query.addPage(1, Lists.newArrayList(change(3, 80), change(4, 40)));
+        Assert.assertEquals(numbers(query.take(10)), Lists.newArrayList(1, 3, 2));
+        Assert.assertEquals(query.startLoading(), Lists.newArrayList(0));
+        Assert.assertEquals(query.getStart(0), 2);
+
+        // change 3 has been updated in the meantime and shows up again
+        query.addPage(0, Lists.newArrayList(change(3, 45), change(5, 30)));
+        Assert.assertEquals(numbers(query.take(1)), Lists.newArrayList(4));
+        Assert.assertTrue(query.hasMore());
+        Assert.assertEquals(numbers(query.take(10)), Lists.newArrayList(5));
+        Assert.assertFalse(query.hasMore());
+    }
+
+    @Test
+    public void testFailedShard() throws Exception {
+        ShardedChangesQuery query = new ShardedChangesQuery(2);
+        query.startLoading();
+        query.addPage(0, null);
+        query.addPage(1, Lists.newArrayList(change(1, 10)));
+        Assert.assertEquals(numbers(query.take(10)), Lists.newArrayList(1));
+        Assert.assertFalse(query.hasMore());
+    }
+
+    @Test
+    public void testAbortedShard() throws Exception {
+        ShardedChangesQuery query = new ShardedChangesQuery(2);
+        query.startLoading();
+        query.addPage(0, Lists.newArrayList(change(1, 10)));
+        query.abortLoading(1);
+        Assert.assertFalse(query.isLoading());
+        Assert.assertTrue(query.take(10).isEmpty()); // shard 1 has not been loaded yet
+        Assert.assertEquals(query.startLoading(), Lists.newArrayList(1));
+        Assert.assertEquals(query.getStart(1), 0);
+
+        query.addPage(1, Lists.newArrayList(change(2, 20)));
+        Assert.assertEquals(numbers(query.take(10)), Lists.newArrayList(2, 1));
+        Assert.assertFalse(query.hasMore());
+    }
+
+    private static ChangeInfo change(int number, long updated) {
+        return change(number, updated, false);
+    }
+
+    private static ChangeInfo change(int number, long updated, boolean moreChanges) {
+        ChangeInfo changeInfo = new ChangeInfo();
+        changeInfo._number = number;
+        changeInfo.id = "project~master~I" + number;
+        changeInfo.updated = new Timestamp(updated);
+        changeInfo._moreChanges = moreChanges ? Boolean.TRUE : null;
+        return changeInfo;
+    }
+
+    private static List<Integer> numbers(List<ChangeInfo> changes) {
+        List<Integer> numbers = Lists.newArrayList();
+        for (ChangeInfo change : changes) {
+            numbers.add(change._number);
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.common.collect.Lists;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.util.Consumer;
+import org.easymock.EasyMock;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * @author Urs Wolfer
+ */
+public class SingleFlightRequestsTest {
+
+    @Test
+    public void testJoinAndComplete() throws Exception {
+        SingleFlightRequests requests = new SingleFlightRequests();
+        Project project = EasyMock.createNiceMock(Project.class);
+        List<String> results = Lists.newArrayList();
+
+        SingleFlightRequests.Flight<String> flight = requests.join(project, "key", collect(results, "a"));
+        Assert.assertNotNull(flight);
+        Assert.assertNull(requests.join(project, "key", collect(results, "b")));
+        Assert.assertNotNull(requests.join(project, "other", collect(results, "c")));
+
+        requests.complete(flight, "1");
+        Assert.assertEquals(results, Lists.newArrayList("a1", "b1"));
+        Assert.assertEquals(requests.size(), 1);
+    }
+
+    @Test
+    public void testAbandon() throws Exception {
+        SingleFlightRequests requests = new SingleFlightRequests();
+        Project project = EasyMock.createNiceMock(Project.class);
+        List<String> results = Lists.newArrayList();
+
+        SingleFlightRequests.Flight<String> flight = requests.join(project, "key", collect(results, "a"));
+        requests.abandon(flight);
+        Assert.assertEquals(requests.size(), 0);
+
+        // the next caller starts a new request; completing the abandoned flight does not affect it
+        SingleFlightRequests.Flight<String> next = requests.join(project, "key", collect(results, "b"));
+        Assert.assertNotNull(next);
+        requests.complete(flight, "1");
+        Assert.assertTrue(results.isEmpty());
+        Assert.assertEquals(requests.size(), 1);
+    }
+
+    @Test
+    public void testProjectDisposed() throws Exception {
+        SingleFlightRequests requests = new SingleFlightRequests();
+        Project project = EasyMock.createNiceMock(Project.class);
+        Project otherProject = EasyMock.createNiceMock(Project.class);
+        List<String> results = Lists.newArrayList();
+
+        requests.join(project, "key", collect(results, "a"));
+        requests.join(project, "other", collect(results, "b"));
+        requests.join(otherProject, "key", collect(results, "c"));
+        Assert.assertEquals(requests.size(), 3);
+
+        Disposer.dispose(project);
+        Assert.assertEquals(requests.size(), 1);
+        Disposer.dispose(otherProject);
+        Assert.assertEquals(requests.size(), 0);
+    }
+
+    private static Consumer<String> collect(final List<String> results, final String prefix) {
+        return new Consumer<String>() {
+            @Override
+            public void consume(String result) {
+                results.add(prefix + result);
+            }
+        };
+    }
+}
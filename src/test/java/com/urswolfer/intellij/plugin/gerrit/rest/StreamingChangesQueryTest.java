@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.urswolfer.intellij.plugin.gerrit.rest;
+
+import com.google.gerrit.extensions.api.changes.Changes;
+import com.google.gerrit.extensions.client.ListChangesOption;
+import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gerrit.extensions.restapi.RestApiException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * @author Urs Wolfer
+ */
+public class StreamingChangesQueryTest {
+
+    @Test
+    public void testBuildPath() throws Exception {
+        Changes.QueryRequest request = new TestQueryRequest()
+            .withQuery("status:open+(project:a+OR+project:b%2Fc)")
+            .withLimit(25)
+            .withStart(50)
+            .withOptions(EnumSet.of(ListChangesOption.LABELS));
+
+        Assert.assertEquals(StreamingChangesQuery.buildPath(request),
+            "/changes/?q=status:open+(project:a+OR+project:b%2Fc)&n=25&S=50&o=LABELS");
+    }
+
+    @Test
+    public void testBuildPathWithSortkey() throws Exception {
+        Changes.QueryRequest request = new TestQueryRequest()
+            .withQuery("is:starred")
+            .withSortkey("00231f4e0000d4d4");
+
+        Assert.assertEquals(StreamingChangesQuery.buildPath(request), "/changes/?q=is:starred&N=00231f4e0000d4d4");
+    }
+
+    private static final class TestQueryRequest extends Changes.QueryRequest {
+        @Override
+        public List<ChangeInfo> get() throws RestApiException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
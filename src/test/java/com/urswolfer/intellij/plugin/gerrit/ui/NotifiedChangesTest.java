@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.urswolfer.intellij.plugin.gerrit.ui;
+
+import com.google.gerrit.extensions.common.ChangeInfo;
+import org.jdom.Element;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Timestamp;
+
+/**
+ * @author Urs Wolfer
+ */
+public class NotifiedChangesTest {
+
+    @Test
+    public void testStatus() throws Exception {
+        NotifiedChanges notifiedChanges = new NotifiedChanges();
+        ChangeInfo change = change("p~master~I1", 1000);
+        Assert.assertEquals(notifiedChanges.getStatus(change), NotifiedChanges.Status.NEW);
+
+        notifiedChanges.setNotified(change);
+        Assert.assertEquals(notifiedChanges.getStatus(change), NotifiedChanges.Status.NOTIFIED);
+        Assert.assertEquals(notifiedChanges.getStatus(change("p~master~I1", 2000)), NotifiedChanges.Status.UPDATED);
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        NotifiedChanges notifiedChanges = new NotifiedChanges();
+        notifiedChanges.setNotified(change("p~master~I1", 1000));
+        Element state = notifiedChanges.getState();
+
+        NotifiedChanges loaded = new NotifiedChanges();
+        loaded.loadState(state);
+        Assert.assertEquals(loaded.getStatus(change("p~master~I1", 1000)), NotifiedChanges.Status.NOTIFIED);
+        Assert.assertEquals(loaded.getStatus(change("p~master~I2", 1000)), NotifiedChanges.Status.NEW);
+    }
+
+    @Test
+    public void testLeastRecentlySeenChangesAreDropped() throws Exception {
+        NotifiedChanges notifiedChanges = new NotifiedChanges();
+        notifiedChanges.setNotified(change("first", 1000));
+        notifiedChanges.setNotified(change("second", 1000));
+        notifiedChanges.getStatus(change("first", 1000)); // seen again
+        for (int i = 0; i < NotifiedChanges.MAX_ENTRIES - 1; i++) {
+            notifiedChanges.setNotified(change("c" + i, 1000));
+        }
+        Assert.assertEquals(notifiedChanges.size(), NotifiedChanges.MAX_ENTRIES);
+        Assert.assertEquals(notifiedChanges.getStatus(change("first", 1000)), NotifiedChanges.Status.NOTIFIED);
+        Assert.assertEquals(notifiedChanges.getStatus(change("second", 1000)), NotifiedChanges.Status.NEW);
+    }
+
+    private static ChangeInfo change(String id, long updated) {
+        ChangeInfo change = new ChangeInfo();
+        change.id = id;
+        change.updated = new Timestamp(updated);
+        return change;
+    }
+}
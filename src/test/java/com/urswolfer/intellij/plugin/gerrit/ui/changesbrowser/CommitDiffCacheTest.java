@@ -0,0 +1,96 @@
+/*
+ * Copyright 2026 Urs Wolfer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.urswolfer.intellij.plugin.gerrit.ui.changesbrowser;
+
+import com.google.common.collect.Lists;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ContentRevision;
+import org.easymock.EasyMock;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * @author Urs Wolfer
+ */
+public class CommitDiffCacheTest {
+
+    private static final String ROOT = "/work/project";
+
+    @Test
+    public void testKeyedByCommitPair() throws Exception {
+        CommitDiffCache cache = new CommitDiffCache();
+        List<Change> diff = createChanges(2);
+        List<Change> commitChanges = createChanges(1);
+        cache.put(ROOT, "base", "commit", diff);
+        cache.put(ROOT, null, "commit", commitChanges);
+
+        Assert.assertEquals(cache.get(ROOT, "base", "commit"), diff);
+        Assert.assertEquals(cache.get(ROOT, null, "commit"), commitChanges);
+        Assert.assertNull(cache.get(ROOT, "other", "commit"));
+        Assert.assertNull(cache.get(ROOT, "commit", "base"));
+        Assert.assertNull(cache.get("/work/other", "base", "commit"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testCachedChangesAreUnmodifiable() throws Exception {
+        CommitDiffCache cache = new CommitDiffCache();
+        List<Change> diff = createChanges(1);
+        cache.put(ROOT, "base", "commit", diff);
+        diff.clear();
+
+        List<Change> cachedDiff = cache.get(ROOT, "base", "commit");
+        Assert.assertEquals(cachedDiff.size(), 1);
+        cachedDiff.add(cachedDiff.get(0));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        CommitDiffCache cache = new CommitDiffCache(5 * 1024);
+        cache.put(ROOT, null, "commit1", createChanges(2));
+        cache.put(ROOT, null, "commit2", createChanges(2));
+        cache.get(ROOT, null, "commit1");
+        cache.put(ROOT, null, "commit3", createChanges(2));
+
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertNotNull(cache.get(ROOT, null, "commit1"));
+        Assert.assertNull(cache.get(ROOT, null, "commit2"));
+        Assert.assertNotNull(cache.get(ROOT, null, "commit3"));
+        Assert.assertTrue(cache.getEstimatedMemoryBytes() <= 5 * 1024);
+    }
+
+    @Test
+    public void testKeepsLargeEntry() throws Exception {
+        CommitDiffCache cache = new CommitDiffCache(1024);
+        cache.put(ROOT, null, "commit", createChanges(10));
+
+        Assert.assertEquals(cache.size(), 1);
+        cache.clear();
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(cache.getEstimatedMemoryBytes(), 0);
+    }
+
+    private static List<Change> createChanges(int count) {
+        List<Change> changes = Lists.newArrayList();
+        for (int i = 0; i < count; i++) {
+            changes.add(new Change(null, EasyMock.createNiceMock(ContentRevision.class)));
+        }
+        return changes;
+    }
+}